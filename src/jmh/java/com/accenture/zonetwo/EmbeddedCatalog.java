@@ -0,0 +1,54 @@
+package com.accenture.zonetwo;
+
+import com.accenture.zonetwo.business.service.ProductService;
+import com.accenture.zonetwo.model.Product;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Boots the application on the in-memory {@code embedded} profile and seeds it with a catalog,
+ * so benchmarks run the real service, repository and mapper wiring without MySQL.
+ */
+public final class EmbeddedCatalog {
+
+    private EmbeddedCatalog() {
+    }
+
+    /**
+     * @param properties {@code key=value} overrides; passed as arguments so they win over application.properties
+     */
+    public static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(ZoneTwoApplication.class)
+                .profiles("embedded")
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties("logging.level.root=WARN")
+                .run(Arrays.stream(properties).map(property -> "--" + property).toArray(String[]::new));
+    }
+
+    public static void seed(ProductService productService, int size) {
+        productService.saveProducts(products(size, false));
+    }
+
+    /**
+     * Products with distinct names, so none of them conflict with each other.
+     */
+    public static List<Product> products(int size, boolean withIds) {
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Product product = product(i);
+            product.setId(withIds ? (long) i + 1 : null);
+            products.add(product);
+        }
+        return products;
+    }
+
+    public static Product product(int i) {
+        return new Product(null, "Product " + i, (i % 1000) + 0.99);
+    }
+}
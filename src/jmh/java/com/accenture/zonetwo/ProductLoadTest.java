@@ -0,0 +1,322 @@
+package com.accenture.zonetwo;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drives a mixed read/write workload against the product API running on the embedded database, and
+ * reports throughput and latency percentiles per operation against SLO targets. Exits with 1 when an
+ * operation misses its SLO, so runs can gate a build.
+ * <p>
+ * The catalog is seeded with plain SQL before the application starts, so startup loaders (indexes,
+ * snapshot) see it whole and 10M rows take seconds rather than going through the service. The application
+ * then runs on the {@code embedded,fast-start} profiles, eagerly initialised. All load comes from one
+ * address, so the per-client rate limit is off unless overridden.
+ * <p>
+ * Requests are sent at a fixed rate whatever the response times (an open model), and latency is measured
+ * from when a request was due rather than when it was sent, so a stalled server shows up in the
+ * percentiles instead of slowing the load down.
+ * <p>
+ * {@code ./gradlew loadTest -PcatalogSize=1000000 -PloadRate=1000 -PloadDuration=2m}
+ * <p>
+ * Arguments are {@code key=value}; anything starting with {@code --} is passed to the application:
+ * <ul>
+ * <li>{@code catalogSize}: seeded products, default 10000</li>
+ * <li>{@code rate}: requests per second, default 200</li>
+ * <li>{@code duration}, {@code warmup}: measured and discarded run time, default 60s and 10s</li>
+ * <li>{@code mix}: relative weight per operation, default
+ * {@code findAll=1,findById=80,save=7,update=7,delete=5}</li>
+ * <li>{@code slo}: p99 target per operation in milliseconds, {@code *} for the others, default
+ * {@code findAll=5000,*=250}</li>
+ * <li>{@code errorBudget}: highest share of failed requests per operation, default 0.01</li>
+ * </ul>
+ */
+public class ProductLoadTest {
+    private static final int MAX_OUTSTANDING = 10_000;
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    private final int catalogSize;
+    private final double rate;
+    private final Map<Operation, Integer> mix;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Queue<Long> createdIds = new ConcurrentLinkedQueue<>();
+    private URI baseUri;
+
+    enum Operation {
+        FIND_ALL("findAll"), FIND_BY_ID("findById"), SAVE("save"), UPDATE("update"), DELETE("delete");
+
+        private final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        static Operation of(String key) {
+            for (Operation operation : values()) {
+                if (operation.key.equals(key)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation " + key);
+        }
+    }
+
+    ProductLoadTest(int catalogSize, double rate, Map<Operation, Integer> mix) {
+        this.catalogSize = catalogSize;
+        this.rate = rate;
+        this.mix = mix;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> applicationArgs = new ArrayList<>(List.of("--server.port=0",
+                "--spring.main.lazy-initialization=false", "--product.admission.client-rate=0",
+                "--logging.level.root=WARN", "--logging.level.com.accenture.zonetwo=WARN"));
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                applicationArgs.add(arg);
+            } else if (arg.contains("=")) {
+                options.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        int catalogSize = Integer.parseInt(options.getOrDefault("catalogSize", "10000"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "200"));
+        Duration duration = DurationStyle.detectAndParse(options.getOrDefault("duration", "60s"));
+        Duration warmup = DurationStyle.detectAndParse(options.getOrDefault("warmup", "10s"));
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        parse(options.getOrDefault("mix", "findAll=1,findById=80,save=7,update=7,delete=5"))
+                .forEach((key, weight) -> mix.put(Operation.of(key), Integer.parseInt(weight)));
+        mix.values().removeIf(weight -> weight <= 0);
+        Map<String, String> slo = parse(options.getOrDefault("slo", "findAll=5000,*=250"));
+        double errorBudget = Double.parseDouble(options.getOrDefault("errorBudget", "0.01"));
+
+        ProductLoadTest loadTest = new ProductLoadTest(catalogSize, rate, mix);
+        long seedStart = System.nanoTime();
+        seed(catalogSize);
+        System.out.printf("Seeded %d products in %d ms%n", catalogSize,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seedStart));
+
+        boolean passed;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ZoneTwoApplication.class)
+                .profiles("embedded", "fast-start")
+                .web(WebApplicationType.SERVLET)
+                .logStartupInfo(false)
+                .run(applicationArgs.toArray(String[]::new))) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            loadTest.baseUri = URI.create("http://localhost:" + port + "/product");
+            System.out.printf("Warming up for %s at %.0f requests/s%n", warmup, rate);
+            loadTest.drive(warmup);
+            System.out.printf("Measuring for %s at %.0f requests/s%n", duration, rate);
+            Map<Operation, Stats> stats = loadTest.drive(duration);
+            passed = report(stats, duration, slo, errorBudget);
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Creates the schema through the migrations and inserts the catalog as {@link EmbeddedCatalog#product}
+     * would, with ids 1 to {@code size}.
+     */
+    private static void seed(int size) throws IOException, SQLException {
+        Properties embedded = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application-embedded.properties"));
+        String url = embedded.getProperty("spring.datasource.url");
+        String username = embedded.getProperty("spring.datasource.username");
+        String password = embedded.getProperty("spring.datasource.password");
+        Flyway.configure().dataSource(url, username, password).locations("classpath:db/migration/h2").load().migrate();
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("insert into product (id, name, price, updated_at, version)"
+                    + " select r.x, concat('Product ', r.x - 1), mod(r.x - 1, 1000) + 0.99, current_timestamp, 0"
+                    + " from system_range(1, " + size + ") r(x)");
+            // Past the seeded ids, allowing for the pooled optimizer's block of 50
+            statement.executeUpdate("alter sequence product_seq restart with " + (size + 51));
+        }
+    }
+
+    private Map<Operation, Stats> drive(Duration duration) throws InterruptedException {
+        Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+        mix.keySet().forEach(operation -> stats.put(operation, new Stats()));
+        List<Operation> weighted = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(operation);
+            }
+        });
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long n = 0; ; n++) {
+            long due = start + (long) (n * intervalNanos);
+            if (due >= end) {
+                break;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = weighted.get(ThreadLocalRandom.current().nextInt(weighted.size()));
+            Stats operationStats = stats.get(operation);
+            if (outstanding.get() >= MAX_OUTSTANDING) {
+                operationStats.dropped.increment();
+                continue;
+            }
+            outstanding.incrementAndGet();
+            send(operation).whenComplete((status, failure) -> {
+                operationStats.record(operation, status, failure, System.nanoTime() - due);
+                outstanding.decrementAndGet();
+            });
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (outstanding.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return stats;
+    }
+
+    private CompletableFuture<Integer> send(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long seededId = 1 + random.nextInt(catalogSize);
+        switch (operation) {
+            case FIND_ALL:
+                return send(HttpRequest.newBuilder(baseUri).GET());
+            case FIND_BY_ID:
+                return send(HttpRequest.newBuilder(uri(seededId)).GET());
+            case SAVE:
+                return client.sendAsync(json(HttpRequest.newBuilder(baseUri), "POST",
+                                "Load " + sequence.incrementAndGet(), 1.99), HttpResponse.BodyHandlers.ofString())
+                        .thenApply(response -> {
+                            Matcher id = ID.matcher(response.body());
+                            if (response.statusCode() == 201 && id.find()) {
+                                createdIds.add(Long.valueOf(id.group(1)));
+                            }
+                            return response.statusCode();
+                        });
+            case UPDATE:
+                return send(json(HttpRequest.newBuilder(uri(seededId)), "PUT",
+                        "Product " + (seededId - 1) + " v" + sequence.incrementAndGet(), (seededId - 1) % 1000 + 0.99));
+            default:
+                Long createdId = createdIds.poll();
+                return send(HttpRequest.newBuilder(uri(createdId != null ? createdId : seededId)).DELETE());
+        }
+    }
+
+    private CompletableFuture<Integer> send(HttpRequest.Builder request) {
+        return send(request.build());
+    }
+
+    private CompletableFuture<Integer> send(HttpRequest request) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(HttpResponse::statusCode);
+    }
+
+    private static HttpRequest json(HttpRequest.Builder request, String method, String name, double price) {
+        return request.header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(
+                        "{\"name\":\"" + name + "\",\"price\":" + price + "}"))
+                .build();
+    }
+
+    private URI uri(long id) {
+        return URI.create(baseUri + "/" + id);
+    }
+
+    private static boolean report(Map<Operation, Stats> stats, Duration duration, Map<String, String> slo,
+                                  double errorBudget) {
+        System.out.printf("%n%-10s %9s %9s %8s %9s %9s %9s %9s  %s%n", "Operation", "requests", "req/s", "failed",
+                "p50 ms", "p99 ms", "p99.9 ms", "max ms", "SLO");
+        boolean passed = true;
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            Stats operationStats = entry.getValue();
+            Histogram latency = operationStats.latency;
+            long requests = latency.getTotalCount() + operationStats.dropped.sum();
+            long failed = operationStats.failed.sum() + operationStats.dropped.sum();
+            double p99 = millis(latency.getValueAtPercentile(99));
+            double targetP99 = Double.parseDouble(slo.getOrDefault(entry.getKey().key, slo.getOrDefault("*", "250")));
+            double failedShare = requests == 0 ? 0 : (double) failed / requests;
+            String verdict = p99 > targetP99 ? String.format("FAIL p99 > %.0f ms", targetP99)
+                    : failedShare > errorBudget ? String.format("FAIL %.2f%% failed", 100 * failedShare)
+                    : "PASS";
+            passed &= verdict.equals("PASS");
+            System.out.printf("%-10s %9d %9.1f %8d %9.2f %9.2f %9.2f %9.2f  %s%n", entry.getKey().key, requests,
+                    requests / (double) duration.toMillis() * 1000, failed, millis(latency.getValueAtPercentile(50)),
+                    p99, millis(latency.getValueAtPercentile(99.9)), millis(latency.getMaxValue()), verdict);
+            if (operationStats.rejected.sum() > 0 || operationStats.dropped.sum() > 0) {
+                System.out.printf("%-10s of which %d shed by the server (429/503), %d not sent as %d were outstanding%n",
+                        "", operationStats.rejected.sum(), operationStats.dropped.sum(), MAX_OUTSTANDING);
+            }
+        }
+        return passed;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static Map<String, String> parse(String pairs) {
+        Map<String, String> parsed = new LinkedHashMap<>();
+        for (String pair : pairs.split(",")) {
+            String[] keyValue = pair.trim().split("=", 2);
+            parsed.put(keyValue[0].trim(), keyValue[1].trim());
+        }
+        return parsed;
+    }
+
+    private static class Stats {
+        private final Histogram latency = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(10), 3);
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+
+        /**
+         * Lookups and deletes of products deleted meanwhile answer 404, which is expected rather than a failure.
+         */
+        void record(Operation operation, Integer status, Throwable failure, long latencyNanos) {
+            latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), latency.getHighestTrackableValue()));
+            if (failure != null) {
+                failed.increment();
+            } else if (status == 429 || status == 503) {
+                rejected.increment();
+                failed.increment();
+            } else if (status >= 400 && !(status == 404 && operation != Operation.SAVE)) {
+                failed.increment();
+            }
+        }
+    }
+}
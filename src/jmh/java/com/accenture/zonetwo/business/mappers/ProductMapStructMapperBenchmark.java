@@ -0,0 +1,39 @@
+package com.accenture.zonetwo.business.mappers;
+
+import com.accenture.zonetwo.EmbeddedCatalog;
+import com.accenture.zonetwo.business.repository.model.ProductDAO;
+import com.accenture.zonetwo.model.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductMapStructMapperBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int catalogSize;
+
+    private final ProductMapStructMapper mapper = new ProductMapStructMapperImpl();
+    private List<Product> products;
+    private List<ProductDAO> productDAOs;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        products = EmbeddedCatalog.products(catalogSize, true);
+        productDAOs = products.stream().map(mapper::productToProductDAO).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Product> productDAOToProduct() {
+        return productDAOs.stream().map(mapper::productDAOToProduct).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ProductDAO> productToProductDAO() {
+        return products.stream().map(mapper::productToProductDAO).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,50 @@
+package com.accenture.zonetwo.business.outbox;
+
+import com.accenture.zonetwo.EmbeddedCatalog;
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.model.Product;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Appending one bulk-write chunk of changes to the outbox against the embedded database. Each chunk should
+ * cost a batched round trip, not one insert per change.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductChangeOutboxBenchmark {
+
+    @Param({"500"})
+    int chunkSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductChangeOutbox productChangeOutbox;
+    private TransactionTemplate transactionTemplate;
+    private List<ProductChangedEvent> events;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = EmbeddedCatalog.start();
+        productChangeOutbox = context.getBean(ProductChangeOutbox.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        events = EmbeddedCatalog.products(chunkSize, true).stream()
+                .map(ProductChangedEvent::saved)
+                .collect(Collectors.toList());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void appendChunk() {
+        transactionTemplate.executeWithoutResult(status -> productChangeOutbox.append(events));
+    }
+}
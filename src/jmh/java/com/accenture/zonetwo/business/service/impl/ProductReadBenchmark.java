@@ -0,0 +1,67 @@
+package com.accenture.zonetwo.business.service.impl;
+
+import com.accenture.zonetwo.EmbeddedCatalog;
+import com.accenture.zonetwo.business.mappers.ProductMapStructMapper;
+import com.accenture.zonetwo.business.repository.ProductRepository;
+import com.accenture.zonetwo.model.Product;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Read paths against the embedded database: {@code *Entities} hydrate managed entities and copy them
+ * through the mapper, as the service did before, {@code *Projected} build products straight from the
+ * query. Run with {@code -PjmhProfilers=gc} to compare allocations per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductReadBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private ProductMapStructMapper productMapStructMapper;
+    private Long existingId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = EmbeddedCatalog.start();
+        productRepository = context.getBean(ProductRepository.class);
+        productMapStructMapper = context.getBean(ProductMapStructMapper.class);
+        EmbeddedCatalog.seed(context.getBean(ProductServiceImpl.class), catalogSize);
+        existingId = productRepository.findAllProducts().get(catalogSize / 2).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Product> findAllEntities() {
+        return productRepository.findAll().stream()
+                .map(productMapStructMapper::productDAOToProduct).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Product> findAllProjected() {
+        return productRepository.findAllProducts();
+    }
+
+    @Benchmark
+    public Optional<Product> findByIdEntity() {
+        return productRepository.findById(existingId).map(productMapStructMapper::productDAOToProduct);
+    }
+
+    @Benchmark
+    public Optional<Product> findByIdProjected() {
+        return productRepository.findProductById(existingId);
+    }
+}
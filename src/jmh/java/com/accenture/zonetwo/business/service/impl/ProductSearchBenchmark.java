@@ -0,0 +1,77 @@
+package com.accenture.zonetwo.business.service.impl;
+
+import com.accenture.zonetwo.EmbeddedCatalog;
+import com.accenture.zonetwo.business.service.ProductService;
+import com.accenture.zonetwo.model.Product;
+import com.accenture.zonetwo.model.ProductSearchCriteria;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code searchProducts} served by the in-memory search index against the database fallback.
+ * Index latency should stay flat across catalog sizes, including for broad queries that match most of the catalog.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductSearchBenchmark {
+
+    @Param({"10000", "100000"})
+    int catalogSize;
+
+    @Param({"true", "false"})
+    boolean searchIndex;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private final ProductSearchCriteria wordPrefix =
+            new ProductSearchCriteria("product 123", ProductSearchCriteria.Match.PREFIX, null, null, 100);
+    private final ProductSearchCriteria substring =
+            new ProductSearchCriteria("t 4567", ProductSearchCriteria.Match.CONTAINS, null, null, 100);
+    private final ProductSearchCriteria priceRange =
+            new ProductSearchCriteria(null, ProductSearchCriteria.Match.PREFIX, 500D, 501D, 100);
+    private final ProductSearchCriteria broadPriceRange =
+            new ProductSearchCriteria(null, ProductSearchCriteria.Match.PREFIX, 10D, 990D, 100);
+    private final ProductSearchCriteria broadSubstring =
+            new ProductSearchCriteria("duct", ProductSearchCriteria.Match.CONTAINS, null, null, 100);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = EmbeddedCatalog.start("product.search-index.enabled=" + searchIndex);
+        productService = context.getBean(ProductService.class);
+        EmbeddedCatalog.seed(productService, catalogSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Product> searchByWordPrefix() {
+        return productService.searchProducts(wordPrefix);
+    }
+
+    @Benchmark
+    public List<Product> searchBySubstring() {
+        return productService.searchProducts(substring);
+    }
+
+    @Benchmark
+    public List<Product> searchByPriceRange() {
+        return productService.searchProducts(priceRange);
+    }
+
+    @Benchmark
+    public List<Product> searchByBroadPriceRange() {
+        return productService.searchProducts(broadPriceRange);
+    }
+
+    @Benchmark
+    public List<Product> searchByBroadSubstring() {
+        return productService.searchProducts(broadSubstring);
+    }
+}
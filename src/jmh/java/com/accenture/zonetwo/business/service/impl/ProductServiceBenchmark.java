@@ -0,0 +1,68 @@
+package com.accenture.zonetwo.business.service.impl;
+
+import com.accenture.zonetwo.EmbeddedCatalog;
+import com.accenture.zonetwo.business.repository.ProductRepository;
+import com.accenture.zonetwo.model.Product;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service hot paths against the embedded database. Write latency ({@code saveProduct}, {@code hasNoMatch})
+ * should stay flat across catalog sizes; {@code hasNoMatchFullScan} is the former findAll-based duplicate
+ * check, kept as the baseline it is compared against.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductServiceBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductServiceImpl productService;
+    private ProductRepository productRepository;
+    private Product existingProduct;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = EmbeddedCatalog.start();
+        productService = context.getBean(ProductServiceImpl.class);
+        productRepository = context.getBean(ProductRepository.class);
+        EmbeddedCatalog.seed(productService, catalogSize);
+        existingProduct = EmbeddedCatalog.product(catalogSize / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Product> findAllProducts() {
+        return productService.findAllProducts();
+    }
+
+    @Benchmark
+    public Product saveProduct() throws Exception {
+        return productService.saveProduct(new Product(null, "New product " + sequence.incrementAndGet(), 1D));
+    }
+
+    @Benchmark
+    public boolean hasNoMatch() {
+        return productService.hasNoMatch(existingProduct);
+    }
+
+    @Benchmark
+    public boolean hasNoMatchFullScan() {
+        return productRepository.findAll().stream()
+                .noneMatch(t -> !t.getId().equals(existingProduct.getId()) &&
+                        t.getName().equals(existingProduct.getName()) &&
+                        t.getPrice().equals(existingProduct.getPrice()));
+    }
+}
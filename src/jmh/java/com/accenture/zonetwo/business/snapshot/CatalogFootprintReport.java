@@ -0,0 +1,76 @@
+package com.accenture.zonetwo.business.snapshot;
+
+import com.accenture.zonetwo.EmbeddedCatalog;
+import com.accenture.zonetwo.business.mappers.ProductMapStructMapper;
+import com.accenture.zonetwo.business.mappers.ProductMapStructMapperImpl;
+import com.accenture.zonetwo.model.Product;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Prints the retained heap of the catalog held as entities, as API models and as {@link CatalogColumns},
+ * measured as the used heap after a full GC with and without the catalog.
+ * <p>
+ * {@code ./gradlew catalogFootprint -PcatalogSize=1000000}
+ */
+public class CatalogFootprintReport {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        ProductMapStructMapper mapper = new ProductMapStructMapperImpl();
+        Instant updatedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        Supplier<List<Product>> products = () -> EmbeddedCatalog.products(size, true).stream()
+                .peek(product -> {
+                    product.setVersion(0L);
+                    product.setUpdatedAt(updatedAt);
+                })
+                .collect(Collectors.toList());
+
+        System.out.printf("%-24s %14s %14s %12s%n", "Form (" + size + " rows)", "heap bytes", "off-heap bytes",
+                "bytes/row");
+        long entities = retainedHeap(() -> products.get().stream().map(mapper::productToProductDAO)
+                .collect(Collectors.toList()));
+        print("List<ProductDAO>", entities, 0, size);
+        long models = retainedHeap(products);
+        print("List<Product>", models, 0, size);
+
+        CatalogColumns[] columns = new CatalogColumns[1];
+        long columnar = retainedHeap(() -> {
+            CatalogColumns.Builder builder = CatalogColumns.builder(size);
+            products.get().forEach(builder::add);
+            columns[0] = builder.build();
+            return columns[0];
+        });
+        print("CatalogColumns", columnar, columns[0].offHeapBytes(), size);
+        System.out.printf("CatalogColumns.heapBytes() estimate: %d%n", columns[0].heapBytes());
+    }
+
+    private static long retainedHeap(Supplier<?> factory) {
+        long before = usedHeapAfterGc();
+        Object retained = factory.get();
+        long after = usedHeapAfterGc();
+        Reference.reachabilityFence(retained);
+        return after - before;
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    private static void print(String form, long heapBytes, long offHeapBytes, int size) {
+        System.out.printf("%-24s %14d %14d %12.1f%n", form, heapBytes, offHeapBytes,
+                (double) (heapBytes + offHeapBytes) / size);
+    }
+}
@@ -0,0 +1,73 @@
+package com.accenture.zonetwo.web.cache;
+
+import com.accenture.zonetwo.EmbeddedCatalog;
+import com.accenture.zonetwo.business.cache.CatalogVersion;
+import com.accenture.zonetwo.model.Product;
+import com.accenture.zonetwo.web.codec.WireFormat;
+import com.accenture.zonetwo.web.codec.WireFormatMappers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writing the catalog listing to the response per request: serialized by Jackson every time (the previous
+ * path, and with gzip what {@code server.compression} would add) against copying the bytes held by
+ * {@link CatalogResponseCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CatalogResponseBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int catalogSize;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ByteArrayOutputStream response = new ByteArrayOutputStream();
+    private final CatalogResponseCache cache = new CatalogResponseCache(DataSize.ofMegabytes(64), true);
+    private List<Product> products;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        products = EmbeddedCatalog.products(catalogSize, true);
+        cache.wireFormatMappers = new WireFormatMappers(objectMapper, Jackson2ObjectMapperBuilder.json());
+        cache.catalogVersion = new CatalogVersion();
+    }
+
+    @Benchmark
+    public int serializePerRequest() throws IOException {
+        response.reset();
+        objectMapper.writeValue(response, products);
+        return response.size();
+    }
+
+    @Benchmark
+    public int serializeAndGzipPerRequest() throws IOException {
+        response.reset();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(response)) {
+            objectMapper.writeValue(gzip, products);
+        }
+        return response.size();
+    }
+
+    @Benchmark
+    public int writeCached() throws IOException {
+        response.reset();
+        response.write(cache.get("all", WireFormat.JSON, () -> products).orElseThrow().getIdentity());
+        return response.size();
+    }
+
+    @Benchmark
+    public int writeCachedGzip() throws IOException {
+        response.reset();
+        response.write(cache.get("all", WireFormat.JSON, () -> products).orElseThrow().getGzip());
+        return response.size();
+    }
+}
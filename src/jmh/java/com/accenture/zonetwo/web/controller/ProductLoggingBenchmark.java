@@ -0,0 +1,62 @@
+package com.accenture.zonetwo.web.controller;
+
+import com.accenture.zonetwo.business.service.ProductService;
+import com.accenture.zonetwo.model.Product;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of logging on the GET /product/{id} path, with the service stubbed out.
+ * Run with {@code -PjmhProfilers=gc} to compare gc.alloc.rate.norm (bytes per request) between the
+ * previous setup (synchronous loggers and appender, payload logged) and the current one (async loggers,
+ * payload at DEBUG). The stub adds the same small proxy cost to both.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProductLoggingBenchmark {
+
+    private final ProductController controller = new ProductController();
+    private final ServletWebRequest webRequest = new ServletWebRequest(
+            new MockHttpServletRequest("GET", "/product/1"), new MockHttpServletResponse());
+
+    @Setup(Level.Trial)
+    public void setup() {
+        controller.productService = stubProductService(new Product(1L, "Box", 100D));
+    }
+
+    @Benchmark
+    @Fork(jvmArgsAppend = {"-Dlog4j2.configurationFile=log4j2-bench-before.xml",
+            // Overrides the async selector log4j2.component.properties sets for the application
+            "-Dlog4j2.contextSelector=org.apache.logging.log4j.core.selector.ClassLoaderContextSelector"})
+    public ResponseEntity<Product> findProductByIdBefore() {
+        return controller.findProductById(1L, webRequest, null);
+    }
+
+    @Benchmark
+    @Fork(jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-bench-after.xml")
+    public ResponseEntity<Product> findProductByIdAfter() {
+        return controller.findProductById(1L, webRequest, null);
+    }
+
+    /**
+     * Answers the lookup the benchmarked path makes and rejects everything else.
+     */
+    private static ProductService stubProductService(Product product) {
+        Optional<Product> found = Optional.of(product);
+        return (ProductService) Proxy.newProxyInstance(ProductService.class.getClassLoader(),
+                new Class<?>[]{ProductService.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findProductById")) {
+                        return found;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,69 @@
+package com.accenture.zonetwo.web.controller;
+
+import com.accenture.zonetwo.EmbeddedCatalog;
+import com.accenture.zonetwo.model.Product;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson encoding and decoding of the catalog listing, configured the way Spring MVC configures it, as
+ * JSON, as Smile (what {@code Accept: application/x-jackson-smile} gets) and as CBOR for comparison.
+ * Run {@link ProductWireSizeReport} for the encoded sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductSerializationBenchmark {
+    private static final TypeReference<List<Product>> PRODUCT_LIST = new TypeReference<>() {};
+
+    @Param({"1000", "10000", "100000"})
+    int catalogSize;
+
+    @Param({"json", "smile", "cbor"})
+    String format;
+
+    private ObjectMapper objectMapper;
+    private List<Product> products;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        objectMapper = mapper(format);
+        products = EmbeddedCatalog.products(catalogSize, true);
+        encoded = objectMapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] writeProductList() throws IOException {
+        return objectMapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public List<Product> readProductList() throws IOException {
+        return objectMapper.readValue(encoded, PRODUCT_LIST);
+    }
+
+    static ObjectMapper mapper(String format) {
+        return Jackson2ObjectMapperBuilder.json().factory(factory(format)).build();
+    }
+
+    private static JsonFactory factory(String format) {
+        switch (format) {
+            case "smile":
+                return new SmileFactory();
+            case "cbor":
+                return new CBORFactory();
+            default:
+                return new JsonFactory();
+        }
+    }
+}
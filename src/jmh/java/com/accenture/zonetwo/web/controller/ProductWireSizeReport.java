@@ -0,0 +1,39 @@
+package com.accenture.zonetwo.web.controller;
+
+import com.accenture.zonetwo.EmbeddedCatalog;
+import com.accenture.zonetwo.model.Product;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Prints the encoded size of the catalog listing per wire format, plain and gzip-compressed as
+ * {@code CatalogResponseCache} serves it.
+ * <p>
+ * {@code ./gradlew productWireSizes -PcatalogSize=1000000}
+ */
+public class ProductWireSizeReport {
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        List<Product> products = EmbeddedCatalog.products(size, true);
+        System.out.printf("%-20s %14s %10s %14s %10s%n", "Format (" + size + " rows)", "bytes", "bytes/row",
+                "gzip bytes", "bytes/row");
+        for (String format : new String[]{"json", "smile", "cbor"}) {
+            byte[] identity = ProductSerializationBenchmark.mapper(format).writeValueAsBytes(products);
+            byte[] gzip = gzip(identity);
+            System.out.printf("%-20s %14d %10.1f %14d %10.1f%n", format, identity.length,
+                    (double) identity.length / size, gzip.length, (double) gzip.length / size);
+        }
+    }
+
+    private static byte[] gzip(byte[] identity) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(identity.length / 4);
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(compressed)) {
+            gzipStream.write(identity);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,43 @@
+package com.accenture.zonetwo.business.cache;
+
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the whole catalog, bumped after every product write. Its ETag lets catalog reads be
+ * answered with 304 without loading anything. The epoch part keeps ETags from a previous run of the
+ * application from matching after a restart.
+ */
+@Component
+public class CatalogVersion {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicLong version = new AtomicLong();
+    private volatile long changedAtNanos;
+
+    public long get() {
+        return version.get();
+    }
+
+    public String etag() {
+        return epoch + "-" + version.get();
+    }
+
+    /**
+     * @return whether a product was written within the duration
+     */
+    public boolean changedWithin(Duration duration) {
+        return version.get() > 0 && System.nanoTime() - changedAtNanos < duration.toNanos();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        // Before the bump, so a reader that sees the new version also sees the change time
+        changedAtNanos = System.nanoTime();
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,150 @@
+package com.accenture.zonetwo.business.cache;
+
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.model.Product;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache for products by id. Eviction is Caffeine's W-TinyLFU;
+ * found products live for {@code product.cache.ttl}, missing ids are cached as empty for
+ * the shorter {@code product.cache.negative-ttl}. A maximum size of 0 disables caching.
+ * Hit, miss and eviction counters are published as the {@code cache.*} metrics tagged {@code cache=product}.
+ * <p>
+ * Products are loaded outside the cache's locks. Loading inside them would block invalidations of the
+ * same hash bin behind a connection wait, while the writer doing the invalidation holds a connection.
+ * A load that overlaps an invalidation is returned but not cached, so it cannot bring back a stale product.
+ * Invalidated ids are also remembered for {@code product.datasource.replica-lag-tolerance}, so that the
+ * loader can read them on the primary instead of a replica that may not have the change yet.
+ */
+@Component
+public class ProductCache implements MeterBinder {
+
+    private final long maximumSize;
+    private final Cache<Long, Optional<Product>> cache;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Cache<Long, Boolean> recentlyInvalidated;
+    private final long replicaLagToleranceNanos;
+    private volatile long allInvalidatedNanos;
+
+    public ProductCache(@Value("${product.cache.maximum-size:10000}") long maximumSize,
+                        @Value("${product.cache.ttl:10m}") Duration ttl,
+                        @Value("${product.cache.negative-ttl:30s}") Duration negativeTtl,
+                        @Value("${product.datasource.replica-lag-tolerance:2s}") Duration replicaLagTolerance) {
+        this.maximumSize = maximumSize;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ProductExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+                .recordStats()
+                .build();
+        this.recentlyInvalidated = Caffeine.newBuilder()
+                .expireAfterWrite(replicaLagTolerance)
+                .build();
+        this.replicaLagToleranceNanos = replicaLagTolerance.toNanos();
+        this.allInvalidatedNanos = System.nanoTime() - replicaLagToleranceNanos;
+    }
+
+    public Optional<Product> get(Long id, Function<Long, Optional<Product>> loader) {
+        if (maximumSize == 0) {
+            return loader.apply(id);
+        }
+        Optional<Product> cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached.map(ProductCache::copy);
+        }
+        long invalidationsBefore = invalidations.get();
+        Optional<Product> loaded = loader.apply(id);
+        // Checked under the entry's lock, which invalidate() also takes after counting itself
+        cache.asMap().compute(id, (key, current) ->
+                current != null || invalidations.get() != invalidationsBefore ? current : loaded);
+        return loaded.map(ProductCache::copy);
+    }
+
+    /**
+     * @return the cached lookup, empty when the product is cached as missing, or null when the id is not cached
+     */
+    public Optional<Product> getIfPresent(Long id) {
+        Optional<Product> product = cache.getIfPresent(id);
+        return product == null ? null : product.map(ProductCache::copy);
+    }
+
+    public void invalidate(Long id) {
+        recentlyInvalidated.put(id, Boolean.TRUE);
+        invalidations.incrementAndGet();
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        allInvalidatedNanos = System.nanoTime();
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return whether the id was invalidated within the replica lag tolerance
+     */
+    public boolean isRecentlyInvalidated(Long id) {
+        return System.nanoTime() - allInvalidatedNanos < replicaLagToleranceNanos
+                || recentlyInvalidated.getIfPresent(id) != null;
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        invalidate(event.getId());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "product");
+    }
+
+    /**
+     * Cached products are handed out as copies so callers cannot change the cached state.
+     */
+    private static Product copy(Product product) {
+        return new Product(product.getId(), product.getName(), product.getPrice(), product.getVersion(),
+                product.getUpdatedAt());
+    }
+
+    private static class ProductExpiry implements Expiry<Long, Optional<Product>> {
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        ProductExpiry(long ttlNanos, long negativeTtlNanos) {
+            this.ttlNanos = ttlNanos;
+            this.negativeTtlNanos = negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(Long id, Optional<Product> product, long currentTime) {
+            return product.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long id, Optional<Product> product, long currentTime, long currentDuration) {
+            return expireAfterCreate(id, product, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long id, Optional<Product> product, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.accenture.zonetwo.business.cache;
+
+import com.accenture.zonetwo.model.Product;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Coalesces concurrent database lookups of the same product, and of the whole catalog, into one query
+ * through {@link SingleFlight}. Callers that joined another one's query get their own copies of the products.
+ * Queries are keyed by the {@link CatalogVersion} they start at, so a call only joins a query that began
+ * after the last write it can have seen; one that began before a write is left to finish on its own.
+ * Published as the {@code product.lookups} counters, tagged with the lookup and whether the call
+ * {@code executed} the query or was {@code coalesced} into one in flight.
+ */
+@Component
+public class ProductLookups implements MeterBinder {
+    private final CatalogVersion catalogVersion;
+
+    private final SingleFlight<IdAtVersion, Optional<Product>> byId = new SingleFlight<>(
+            product -> product.map(ProductLookups::copy));
+    private final SingleFlight<Long, List<Product>> all = new SingleFlight<>(
+            products -> products.stream().map(ProductLookups::copy).collect(Collectors.toList()));
+
+    public ProductLookups(CatalogVersion catalogVersion) {
+        this.catalogVersion = catalogVersion;
+    }
+
+    public Optional<Product> findById(Long id, Function<Long, Optional<Product>> loader) {
+        return byId.execute(new IdAtVersion(id, catalogVersion.get()), () -> loader.apply(id));
+    }
+
+    public List<Product> findAll(Supplier<List<Product>> loader) {
+        return all.execute(catalogVersion.get(), loader);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        register(registry, "findById", "executed", byId, SingleFlight::executedCount);
+        register(registry, "findById", "coalesced", byId, SingleFlight::coalescedCount);
+        register(registry, "findAll", "executed", all, SingleFlight::executedCount);
+        register(registry, "findAll", "coalesced", all, SingleFlight::coalescedCount);
+    }
+
+    private static <T> void register(MeterRegistry registry, String lookup, String outcome, T flight,
+                                     ToDoubleFunction<T> count) {
+        FunctionCounter.builder("product.lookups", flight, count)
+                .description("Product lookups that ran a database query or joined one in flight")
+                .tag("lookup", lookup)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Product copy(Product product) {
+        return new Product(product.getId(), product.getName(), product.getPrice(), product.getVersion(),
+                product.getUpdatedAt());
+    }
+
+    @Value
+    private static class IdAtVersion {
+        Long id;
+        long catalogVersion;
+    }
+}
@@ -0,0 +1,84 @@
+package com.accenture.zonetwo.business.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Runs at most one load per key at a time: a caller arriving while a load for its key is in flight waits
+ * for that load and gets its result, or its exception, instead of starting another. Nothing is kept once
+ * the load completes, so only concurrent calls are merged. A joining caller still gets a result read
+ * before it arrived, so the key must change whenever that result may no longer be current, e.g. by
+ * including a version bumped on every write.
+ * The in-flight map is a {@link ConcurrentHashMap} claimed with {@code putIfAbsent}, so no lock is held
+ * while loading.
+ *
+ * @param <K> the key that makes two loads the same
+ * @param <V> the loaded value
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final UnaryOperator<V> share;
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * @param share applied to the result for each waiting caller, e.g. to hand out copies of mutable values
+     */
+    public SingleFlight(UnaryOperator<V> share) {
+        this.share = share;
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            coalesced.increment();
+            return share.apply(await(leader));
+        }
+        executed.increment();
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * @return calls that ran the loader
+     */
+    public long executedCount() {
+        return executed.sum();
+    }
+
+    /**
+     * @return calls that joined a load already in flight
+     */
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.accenture.zonetwo.business.event;
+
+import com.accenture.zonetwo.model.Product;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Published by the product service after a product is saved or deleted, so that
+ * in-memory structures built over the catalog can follow the write.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ProductChangedEvent {
+
+    public enum Type {
+        SAVED,
+        DELETED
+    }
+
+    Type type;
+    Long id;
+    /**
+     * The saved state of the product, or null when it was deleted.
+     */
+    Product product;
+
+    public static ProductChangedEvent saved(Product product) {
+        return new ProductChangedEvent(Type.SAVED, product.getId(), product);
+    }
+
+    public static ProductChangedEvent deleted(Long id) {
+        return new ProductChangedEvent(Type.DELETED, id, null);
+    }
+
+    /**
+     * Events are published after commit on the writers' own threads, so two writes to one product may
+     * deliver theirs out of order; a listener keeps a saved state only when it is newer than the one it holds.
+     *
+     * @return true unless both versions are known and the saved one is not higher
+     */
+    public boolean isNewerThan(Long version) {
+        return version == null || product.getVersion() == null || product.getVersion() > version;
+    }
+}
@@ -0,0 +1,146 @@
+package com.accenture.zonetwo.business.index;
+
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.business.repository.ProductRepository;
+import com.accenture.zonetwo.model.Product;
+import lombok.Data;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory hashed (name, price) index used for O(1) duplicate detection on writes.
+ * Disabled by default; when {@code product.match-index.enabled} is set it is loaded once
+ * the application is ready and kept in sync through {@link ProductChangedEvent}s.
+ */
+@Log4j2
+@Component
+public class ProductMatchIndex {
+    @Autowired
+    ProductRepository productRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private final boolean enabled;
+    private final Map<NamePrice, Long> idsByKey = new ConcurrentHashMap<>();
+    private final Map<Long, Indexed> indexedById = new ConcurrentHashMap<>();
+    /**
+     * Products deleted before the index is ready, so that loading does not bring them back.
+     */
+    private final Set<Long> deletedWhileLoading = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    public ProductMatchIndex(@Value("${product.match-index.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Product> productStream = productRepository.streamAllProducts()) {
+                productStream.forEach(this::putLoaded);
+            }
+        });
+        synchronized (this) {
+            ready = true;
+            deletedWhileLoading.clear();
+        }
+        log.info("Product match index loaded. Size is: {}", indexedById::size);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @return true when a product other than the given one already has the same name and price
+     */
+    public boolean hasMatch(Product product) {
+        Long id = idsByKey.get(new NamePrice(product.getName(), product.getPrice()));
+        return id != null && !id.equals(product.getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ProductChangedEvent.Type.SAVED) {
+            save(event);
+        } else {
+            remove(event.getId());
+        }
+    }
+
+    public synchronized void put(Product product) {
+        if (!enabled || product.getId() == null) {
+            return;
+        }
+        NamePrice key = new NamePrice(product.getName(), product.getPrice());
+        Indexed previous = indexedById.put(product.getId(), new Indexed(key, product.getVersion()));
+        if (previous != null && !previous.key.equals(key)) {
+            idsByKey.remove(previous.key, product.getId());
+        }
+        idsByKey.put(key, product.getId());
+    }
+
+    public synchronized void remove(Long id) {
+        if (!enabled || id == null) {
+            return;
+        }
+        if (!ready) {
+            deletedWhileLoading.add(id);
+        }
+        Indexed previous = indexedById.remove(id);
+        if (previous != null) {
+            idsByKey.remove(previous.key, id);
+        }
+    }
+
+    /**
+     * Indexes a saved product unless the index already holds a newer version, which would otherwise
+     * decide duplicate checks with a name and price the product no longer has.
+     */
+    private synchronized void save(ProductChangedEvent event) {
+        Indexed indexed = indexedById.get(event.getId());
+        if (indexed != null && !event.isNewerThan(indexed.version)) {
+            log.debug("Stale change of product {} is ignored: {}", event.getId(), event.getProduct());
+            return;
+        }
+        put(event.getProduct());
+    }
+
+    /**
+     * Adds a product read while loading, unless a change committed meanwhile already saved or deleted it.
+     */
+    private synchronized void putLoaded(Product product) {
+        if (!indexedById.containsKey(product.getId()) && !deletedWhileLoading.contains(product.getId())) {
+            put(product);
+        }
+    }
+
+    @Data
+    private static class NamePrice {
+        private final String name;
+        private final Double price;
+    }
+
+    @Data
+    private static class Indexed {
+        private final NamePrice key;
+        private final Long version;
+    }
+}
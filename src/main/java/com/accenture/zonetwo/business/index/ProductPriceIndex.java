@@ -0,0 +1,292 @@
+package com.accenture.zonetwo.business.index;
+
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.business.repository.ProductRepository;
+import com.accenture.zonetwo.model.PriceHistogram;
+import com.accenture.zonetwo.model.PriceStatistics;
+import com.accenture.zonetwo.model.Product;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Price aggregates over the catalog, maintained on every write instead of scanning for each query:
+ * striped counters for the count, the sum and the buckets of the default histogram, and a sorted
+ * price-to-count map for the minimum, the maximum and histograms over other bounds. Statistics cost
+ * O(log N), the default histogram O(buckets) and any other histogram one pass over the distinct prices.
+ * Writes never take a lock against each other, only against the swap at the end of a rebuild.
+ * <p>
+ * Disabled by default; when {@code product.price-index.enabled} is set it is loaded once the application
+ * is ready and kept in sync through {@link ProductChangedEvent}s. Every
+ * {@code product.price-index.reconcile-interval} it is checked against the database aggregates and
+ * rebuilt when they differ, which also clears the rounding the running sum accumulates.
+ */
+@Log4j2
+@Component
+public class ProductPriceIndex {
+    /**
+     * Relative difference between the running sum and the database one that is put down to rounding.
+     */
+    private static final double SUM_TOLERANCE = 1e-9;
+
+    @Autowired
+    ProductRepository productRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private final boolean enabled;
+    private final double[] defaultBounds;
+    private final List<Double> defaultBoundList;
+    /**
+     * Taken shared by writes and exclusively to swap in a rebuilt state.
+     */
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile Prices prices;
+    /**
+     * Changes applied while a rebuild scans the database, replayed onto the rebuilt state; null otherwise.
+     */
+    private volatile Queue<ProductChangedEvent> journal;
+    private volatile boolean ready;
+
+    public ProductPriceIndex(@Value("${product.price-index.enabled:false}") boolean enabled,
+                             @Value("${product.price-index.histogram-bounds:10,25,50,100,250,500,1000}") double[] defaultBounds) {
+        this.defaultBoundList = Arrays.stream(defaultBounds).boxed().collect(Collectors.toUnmodifiableList());
+        if (!isAscending(defaultBoundList)) {
+            throw new IllegalArgumentException("Histogram bounds must be finite and ascending: "
+                    + Arrays.toString(defaultBounds));
+        }
+        this.enabled = enabled;
+        this.defaultBounds = defaultBounds.clone();
+        this.prices = new Prices(this.defaultBounds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        rebuild();
+        ready = true;
+        log.info("Product price index loaded. Size is: {}", () -> prices.count.sum());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<Double> getDefaultBounds() {
+        return defaultBoundList;
+    }
+
+    public PriceStatistics statistics() {
+        Prices current = prices;
+        long count = current.count.sum();
+        if (count <= 0) {
+            return new PriceStatistics(0L, null, null, 0D);
+        }
+        return new PriceStatistics(count, firstCounted(current.countsByPrice),
+                firstCounted(current.countsByPrice.descendingMap()), current.sum.sum());
+    }
+
+    /**
+     * @param bounds finite and ascending, as {@link #isAscending} checks
+     */
+    public PriceHistogram histogram(List<Double> bounds) {
+        Prices current = prices;
+        long[] counts = new long[bounds.size() + 1];
+        if (bounds.equals(defaultBoundList)) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = Math.max(current.bucketCounts[i].sum(), 0);
+            }
+            return PriceHistogram.of(bounds, counts);
+        }
+        int bucket = 0;
+        for (Map.Entry<Double, Long> entry : current.countsByPrice.entrySet()) {
+            while (bucket < bounds.size() && entry.getKey() >= bounds.get(bucket)) {
+                bucket++;
+            }
+            counts[bucket] += Math.max(entry.getValue(), 0);
+        }
+        return PriceHistogram.of(bounds, counts);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        swapLock.readLock().lock();
+        try {
+            prices.apply(event);
+            Queue<ProductChangedEvent> pending = journal;
+            if (pending != null) {
+                pending.add(event);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compares the index with the database aggregates and rebuilds it when they differ. A write landing
+     * between the two reads can cause a needless rebuild, never a wrong one.
+     */
+    @Scheduled(fixedDelayString = "${product.price-index.reconcile-interval:PT15M}",
+            initialDelayString = "${product.price-index.reconcile-interval:PT15M}")
+    public void reconcile() {
+        if (!ready) {
+            return;
+        }
+        PriceStatistics stored = productRepository.findPriceStatistics();
+        PriceStatistics indexed = statistics();
+        if (matches(indexed, stored)) {
+            log.debug("Product price index matches the database: {}", indexed);
+            return;
+        }
+        log.warn("Product price index differs from the database, rebuilding. Indexed: {}, stored: {}", indexed, stored);
+        rebuild();
+    }
+
+    /**
+     * Loads a fresh state from the database while writes keep going to the current one, then swaps it in
+     * after replaying the writes made meanwhile. Changes carry the committed price, so replaying one the
+     * scan already saw changes nothing.
+     */
+    synchronized void rebuild() {
+        Prices rebuilt = new Prices(defaultBounds);
+        journal = new ConcurrentLinkedQueue<>();
+        try {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(true);
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Product> productStream = productRepository.streamAllProducts()) {
+                    productStream.forEach(product -> rebuilt.put(product.getId(), product.getPrice()));
+                }
+            });
+            swapLock.writeLock().lock();
+            try {
+                journal.forEach(rebuilt::apply);
+                prices = rebuilt;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+        } finally {
+            journal = null;
+        }
+    }
+
+    /**
+     * @return whether the bounds are finite and strictly ascending
+     */
+    public static boolean isAscending(List<Double> bounds) {
+        for (int i = 0; i < bounds.size(); i++) {
+            if (bounds.get(i) == null || !Double.isFinite(bounds.get(i)) || (i > 0 && bounds.get(i) <= bounds.get(i - 1))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(PriceStatistics indexed, PriceStatistics stored) {
+        return indexed.getCount() == stored.getCount()
+                && Objects.equals(indexed.getMin(), stored.getMin())
+                && Objects.equals(indexed.getMax(), stored.getMax())
+                && Math.abs(indexed.getSum() - stored.getSum()) <= SUM_TOLERANCE * Math.abs(stored.getSum()) + SUM_TOLERANCE;
+    }
+
+    /**
+     * First price with a positive count. Only racing changes of one product leave a price counted zero or
+     * less, and only until they have all been applied.
+     */
+    private static Double firstCounted(Map<Double, Long> countsByPrice) {
+        Iterator<Map.Entry<Double, Long>> entries = countsByPrice.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Double, Long> entry = entries.next();
+            if (entry.getValue() > 0) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    private static class Prices {
+        private final Map<Long, Double> pricesById = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<Double, Long> countsByPrice = new ConcurrentSkipListMap<>();
+        private final LongAdder count = new LongAdder();
+        private final DoubleAdder sum = new DoubleAdder();
+        private final double[] bounds;
+        /**
+         * Bucket i counts the prices in [bounds[i - 1], bounds[i]), open-ended at both ends.
+         */
+        private final LongAdder[] bucketCounts;
+
+        Prices(double[] bounds) {
+            this.bounds = bounds;
+            this.bucketCounts = Stream.generate(LongAdder::new).limit(bounds.length + 1L).toArray(LongAdder[]::new);
+        }
+
+        void apply(ProductChangedEvent event) {
+            if (event.getType() == ProductChangedEvent.Type.SAVED) {
+                put(event.getId(), event.getProduct().getPrice());
+            } else {
+                remove(event.getId());
+            }
+        }
+
+        void put(Long id, Double price) {
+            if (id == null || price == null) {
+                return;
+            }
+            Double previous = pricesById.put(id, price);
+            if (price.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                count(previous, -1);
+            }
+            count(price, 1);
+        }
+
+        void remove(Long id) {
+            Double previous = pricesById.remove(id);
+            if (previous != null) {
+                count(previous, -1);
+            }
+        }
+
+        private void count(double price, int delta) {
+            count.add(delta);
+            sum.add(delta * price);
+            countsByPrice.merge(price, (long) delta, (current, change) -> current + change == 0 ? null : current + change);
+            bucketCounts[bucketOf(price)].add(delta);
+        }
+
+        private int bucketOf(double price) {
+            int index = Arrays.binarySearch(bounds, price);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+    }
+}
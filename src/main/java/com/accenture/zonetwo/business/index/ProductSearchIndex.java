@@ -0,0 +1,347 @@
+package com.accenture.zonetwo.business.index;
+
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.business.repository.ProductRepository;
+import com.accenture.zonetwo.model.Product;
+import com.accenture.zonetwo.model.ProductSearchCriteria;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-process search index over the catalog: a sorted price map for range filters, a sorted word map
+ * for word-prefix matches and a trigram map for substring matches. A query takes its candidates from the
+ * most selective of these, checks the remaining criteria on each and keeps the lowest ids up to the limit.
+ * When there are more than {@link #MAX_SELECTED_CANDIDATES} candidates, it walks the catalog in id order
+ * instead and stops at the limit, which so many candidates fill early. Either way it returns the same page
+ * as the database fallback, which orders by id, at a cost that depends on the matches rather than the
+ * catalog size.
+ * Disabled by default; when {@code product.search-index.enabled} is set it is loaded once the application
+ * is ready and kept in sync through {@link ProductChangedEvent}s.
+ */
+@Log4j2
+@Component
+public class ProductSearchIndex {
+    private static final int TRIGRAM_LENGTH = 3;
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Comparator<Product> BY_ID = Comparator.comparing(Product::getId);
+    /**
+     * Candidates up to which a query selects the lowest matching ids among them rather than walking
+     * the catalog in id order.
+     */
+    static final int MAX_SELECTED_CANDIDATES = 4096;
+
+    @Autowired
+    ProductRepository productRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private final boolean enabled;
+    private final Map<Long, IndexedProduct> productsById = new ConcurrentHashMap<>();
+    /**
+     * The same products in id order, walked by broad queries; lookups go to the hash map, which is faster.
+     */
+    private final ConcurrentSkipListMap<Long, IndexedProduct> productsInIdOrder = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Double, Set<Long>> idsByPrice = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, Set<Long>> idsByWord = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<Long>> idsByTrigram = new ConcurrentHashMap<>();
+    /**
+     * Products deleted before the index is ready, so that loading does not bring them back.
+     */
+    private final Set<Long> deletedWhileLoading = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    public ProductSearchIndex(@Value("${product.search-index.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Product> productStream = productRepository.streamAllProducts()) {
+                productStream.forEach(this::putLoaded);
+            }
+        });
+        synchronized (this) {
+            ready = true;
+            deletedWhileLoading.clear();
+        }
+        log.info("Product search index loaded. Size is: {}", productsById::size);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<Product> search(ProductSearchCriteria criteria) {
+        if (criteria.getLimit() <= 0) {
+            return List.of();
+        }
+        Predicate<IndexedProduct> matcher = matcher(criteria);
+        Collection<Set<Long>> candidates = candidates(criteria);
+        if (candidates == null || countUpTo(candidates, MAX_SELECTED_CANDIDATES) >= MAX_SELECTED_CANDIDATES) {
+            return productsInIdOrder.values().stream()
+                    .filter(matcher)
+                    .limit(criteria.getLimit())
+                    .map(indexed -> copy(indexed.product))
+                    .collect(Collectors.toList());
+        }
+        // Max-heap of the lowest ids matched so far
+        PriorityQueue<Product> lowestIds = new PriorityQueue<>(BY_ID.reversed());
+        candidates.stream()
+                .flatMap(Set::stream)
+                .distinct()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .filter(matcher)
+                .forEach(indexed -> {
+                    if (lowestIds.size() < criteria.getLimit()) {
+                        lowestIds.add(indexed.product);
+                    } else if (indexed.product.getId() < lowestIds.peek().getId()) {
+                        lowestIds.poll();
+                        lowestIds.add(indexed.product);
+                    }
+                });
+        return lowestIds.stream()
+                .sorted(BY_ID)
+                .map(ProductSearchIndex::copy)
+                .collect(Collectors.toList());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ProductChangedEvent.Type.SAVED) {
+            save(event);
+        } else {
+            remove(event.getId());
+        }
+    }
+
+    public synchronized void put(Product product) {
+        if (!enabled || product.getId() == null || product.getName() == null || product.getPrice() == null) {
+            return;
+        }
+        unindex(product.getId());
+        IndexedProduct indexed = new IndexedProduct(copy(product));
+        productsById.put(product.getId(), indexed);
+        productsInIdOrder.put(product.getId(), indexed);
+        add(idsByPrice, product.getPrice(), product.getId());
+        indexed.words.forEach(word -> add(idsByWord, word, product.getId()));
+        trigramsOf(indexed.normalizedName).forEach(trigram -> add(idsByTrigram, trigram, product.getId()));
+    }
+
+    public synchronized void remove(Long id) {
+        if (enabled && !ready) {
+            deletedWhileLoading.add(id);
+        }
+        unindex(id);
+    }
+
+    private void unindex(Long id) {
+        IndexedProduct indexed = productsById.remove(id);
+        if (indexed == null) {
+            return;
+        }
+        productsInIdOrder.remove(id);
+        discard(idsByPrice, indexed.product.getPrice(), id);
+        indexed.words.forEach(word -> discard(idsByWord, word, id));
+        trigramsOf(indexed.normalizedName).forEach(trigram -> discard(idsByTrigram, trigram, id));
+    }
+
+    /**
+     * Indexes a saved product unless the index already holds a newer version of it.
+     */
+    private synchronized void save(ProductChangedEvent event) {
+        IndexedProduct indexed = productsById.get(event.getId());
+        if (indexed != null && !event.isNewerThan(indexed.product.getVersion())) {
+            log.debug("Stale change of product {} is ignored: {}", event.getId(), event.getProduct());
+            return;
+        }
+        put(event.getProduct());
+    }
+
+    /**
+     * Adds a product read while loading, unless a change committed meanwhile already saved or deleted it.
+     */
+    private synchronized void putLoaded(Product product) {
+        if (!productsById.containsKey(product.getId()) && !deletedWhileLoading.contains(product.getId())) {
+            put(product);
+        }
+    }
+
+    /**
+     * Id sets to check, drawn from the most selective structure the criteria allow; they may overlap.
+     *
+     * @return the sets, or null when every product is a candidate
+     */
+    private Collection<Set<Long>> candidates(ProductSearchCriteria criteria) {
+        if (criteria.hasName()) {
+            String query = normalize(criteria.getName());
+            if (criteria.getMatch() == ProductSearchCriteria.Match.CONTAINS) {
+                if (query.length() >= TRIGRAM_LENGTH) {
+                    return List.of(trigramsOf(query).stream()
+                            .map(trigram -> idsByTrigram.getOrDefault(trigram, Set.of()))
+                            .min(Comparator.comparingInt(Set::size))
+                            .orElse(Set.of()));
+                }
+                if (WORD_SEPARATOR.matcher(query).find()) {
+                    return null;
+                }
+                return idsByWord.entrySet().stream()
+                        .filter(entry -> entry.getKey().contains(query))
+                        .map(Map.Entry::getValue)
+                        .collect(Collectors.toList());
+            }
+            List<String> words = wordsOf(query);
+            if (!words.isEmpty()) {
+                return narrowestWordRange(words);
+            }
+        }
+        return idsByPrice.subMap(minPrice(criteria), true, maxPrice(criteria), true).values();
+    }
+
+    /**
+     * @return the total size of the sets, or the first sum of their sizes that reaches the maximum
+     */
+    private static long countUpTo(Collection<Set<Long>> sets, long maximum) {
+        long count = 0;
+        Iterator<Set<Long>> iterator = sets.iterator();
+        while (count < maximum && iterator.hasNext()) {
+            count += iterator.next().size();
+        }
+        return count;
+    }
+
+    /**
+     * Id sets of the words starting with a query word, for the query word matching the fewest ids.
+     * The ranges are counted in step, always advancing the one with the lowest count so far, so finding
+     * the narrowest range costs about as much as iterating it.
+     */
+    private Collection<Set<Long>> narrowestWordRange(List<String> queryWords) {
+        List<Collection<Set<Long>>> ranges = queryWords.stream()
+                .map(word -> idsByWord.subMap(word, word + Character.MAX_VALUE).values())
+                .collect(Collectors.toList());
+        List<Iterator<Set<Long>>> iterators = ranges.stream().map(Collection::iterator).collect(Collectors.toList());
+        long[] counts = new long[ranges.size()];
+        while (true) {
+            int lowest = 0;
+            for (int i = 1; i < counts.length; i++) {
+                if (counts[i] < counts[lowest]) {
+                    lowest = i;
+                }
+            }
+            if (!iterators.get(lowest).hasNext()) {
+                return ranges.get(lowest);
+            }
+            counts[lowest] += iterators.get(lowest).next().size();
+        }
+    }
+
+    private static Predicate<IndexedProduct> matcher(ProductSearchCriteria criteria) {
+        double minPrice = minPrice(criteria);
+        double maxPrice = maxPrice(criteria);
+        Predicate<IndexedProduct> matcher = indexed ->
+                indexed.product.getPrice() >= minPrice && indexed.product.getPrice() <= maxPrice;
+        if (!criteria.hasName()) {
+            return matcher;
+        }
+        String query = normalize(criteria.getName());
+        if (criteria.getMatch() == ProductSearchCriteria.Match.CONTAINS) {
+            return matcher.and(indexed -> indexed.normalizedName.contains(query));
+        }
+        List<String> queryWords = wordsOf(query);
+        return matcher.and(indexed -> queryWords.stream()
+                .allMatch(queryWord -> indexed.words.stream().anyMatch(word -> word.startsWith(queryWord))));
+    }
+
+    private static double minPrice(ProductSearchCriteria criteria) {
+        return criteria.getMinPrice() == null ? Double.NEGATIVE_INFINITY : criteria.getMinPrice();
+    }
+
+    private static double maxPrice(ProductSearchCriteria criteria) {
+        return criteria.getMaxPrice() == null ? Double.POSITIVE_INFINITY : criteria.getMaxPrice();
+    }
+
+    private static <K> void add(Map<K, Set<Long>> index, K key, Long id) {
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    private static <K> void discard(Map<K, Set<Long>> index, K key, Long id) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return the lower-cased words of a name as the index splits them, which a word-prefix query matches
+     */
+    public static List<String> wordsOfName(String name) {
+        return wordsOf(normalize(name));
+    }
+
+    private static List<String> wordsOf(String normalizedName) {
+        return Arrays.stream(WORD_SEPARATOR.split(normalizedName))
+                .filter(word -> !word.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    private static Set<String> trigramsOf(String normalizedName) {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + TRIGRAM_LENGTH <= normalizedName.length(); i++) {
+            trigrams.add(normalizedName.substring(i, i + TRIGRAM_LENGTH));
+        }
+        return trigrams;
+    }
+
+    private static Product copy(Product product) {
+        return new Product(product.getId(), product.getName(), product.getPrice(), product.getVersion(),
+                product.getUpdatedAt());
+    }
+
+    private static class IndexedProduct {
+        private final Product product;
+        private final String normalizedName;
+        private final List<String> words;
+
+        IndexedProduct(Product product) {
+            this.product = product;
+            this.normalizedName = normalize(product.getName());
+            this.words = wordsOf(normalizedName);
+        }
+    }
+}
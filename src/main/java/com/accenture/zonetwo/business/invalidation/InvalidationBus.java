@@ -0,0 +1,21 @@
+package com.accenture.zonetwo.business.invalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries product invalidations between the nodes serving the catalog, selected by
+ * {@code product.invalidation.bus}. Delivery is at least once and may be out of order; receivers reload
+ * the named products, so both are harmless.
+ */
+public interface InvalidationBus {
+
+    /**
+     * Announces a change this node has committed.
+     */
+    void publish(ProductInvalidation invalidation);
+
+    /**
+     * @param consumer receives the invalidations of every node, possibly including this one's
+     */
+    void subscribe(Consumer<ProductInvalidation> consumer);
+}
@@ -0,0 +1,30 @@
+package com.accenture.zonetwo.business.invalidation;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-memory bus that hands each invalidation straight to every subscriber. Several relays sharing one
+ * instance stand in for a cluster in tests; within a single application it only echoes the node's own
+ * changes back.
+ */
+@Component
+@ConditionalOnProperty(name = "product.invalidation.bus", havingValue = "loopback")
+public class LoopbackInvalidationBus implements InvalidationBus {
+
+    private final List<Consumer<ProductInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(ProductInvalidation invalidation) {
+        subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+    }
+
+    @Override
+    public void subscribe(Consumer<ProductInvalidation> consumer) {
+        subscribers.add(consumer);
+    }
+}
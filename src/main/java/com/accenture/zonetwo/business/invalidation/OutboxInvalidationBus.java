@@ -0,0 +1,133 @@
+package com.accenture.zonetwo.business.invalidation;
+
+import com.accenture.zonetwo.business.outbox.ProductChangeFeed;
+import com.accenture.zonetwo.business.outbox.ProductChangeOutbox;
+import com.accenture.zonetwo.model.ProductChange;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Bus over the product change outbox that all nodes share through the database. Every node writes its
+ * changes there in the transaction that makes them, so nothing needs sending; each node polls the
+ * outbox every {@code product.invalidation.poll-interval} and turns the changes of the other nodes into
+ * invalidations. It also hands those changes to this node's {@link ProductChangeFeed}, which only hears of
+ * local commits otherwise; subscribers may see them up to one relay flush before the caches here do.
+ * <p>
+ * Outbox sequences follow insert order, not commit order, so a transaction that inserted earlier may
+ * commit after a later one was polled. Skipped sequences are rechecked on every poll until they show up
+ * or {@code product.invalidation.gap-timeout} has passed, after which they are taken for rolled back.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "product.invalidation.bus", havingValue = "outbox")
+public class OutboxInvalidationBus implements InvalidationBus {
+    static final int POLL_PAGE_SIZE = 500;
+    /**
+     * Most skipped sequences tracked at once, so a burst of rollbacks cannot hold unbounded memory.
+     */
+    static final int MAX_GAPS = 10_000;
+
+    @Autowired
+    ProductChangeOutbox productChangeOutbox;
+    @Autowired
+    ProductChangeFeed productChangeFeed;
+
+    private final long gapTimeoutNanos;
+    private final List<Consumer<ProductInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+    /**
+     * This node's changes not polled yet, skipped when they are.
+     */
+    private final Set<Long> ownSequences = ConcurrentHashMap.newKeySet();
+    /**
+     * Skipped sequences, with the time they were first found missing.
+     */
+    private final Map<Long, Long> gaps = new ConcurrentHashMap<>();
+    /**
+     * Last sequence polled, or -1 until {@link #init} has run.
+     */
+    private volatile long lastSequence = -1;
+
+    public OutboxInvalidationBus(@Value("${product.invalidation.gap-timeout:10s}") Duration gapTimeout) {
+        this.gapTimeoutNanos = gapTimeout.toNanos();
+    }
+
+    /**
+     * Starts after the changes committed so far, which the loaders running once the application is ready
+     * already see.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public synchronized void init() {
+        lastSequence = productChangeOutbox.latestSequence();
+        log.info("Polling product changes for invalidations after sequence {}", lastSequence);
+    }
+
+    @Override
+    public void publish(ProductInvalidation invalidation) {
+        if (invalidation.getSequence() != null && lastSequence >= 0 && invalidation.getSequence() > lastSequence) {
+            ownSequences.add(invalidation.getSequence());
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<ProductInvalidation> consumer) {
+        subscribers.add(consumer);
+    }
+
+    @Scheduled(fixedDelayString = "${product.invalidation.poll-interval:PT0.5S}")
+    public synchronized void poll() {
+        if (lastSequence < 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        List<ProductChange> page;
+        do {
+            page = productChangeOutbox.findChangesAfter(lastSequence, POLL_PAGE_SIZE);
+            for (ProductChange change : page) {
+                for (long skipped = lastSequence + 1; skipped < change.getSequence() && gaps.size() < MAX_GAPS; skipped++) {
+                    gaps.put(skipped, now);
+                }
+                lastSequence = change.getSequence();
+                deliver(change);
+            }
+        } while (page.size() == POLL_PAGE_SIZE);
+        if (!gaps.isEmpty()) {
+            for (ProductChange change : productChangeOutbox.findChanges(gaps.keySet())) {
+                gaps.remove(change.getSequence());
+                deliver(change);
+            }
+            gaps.values().removeIf(firstMissed -> now - firstMissed >= gapTimeoutNanos);
+        }
+        ownSequences.removeIf(sequence -> sequence <= lastSequence && !gaps.containsKey(sequence));
+    }
+
+    long getLastSequence() {
+        return lastSequence;
+    }
+
+    int getGapCount() {
+        return gaps.size();
+    }
+
+    private void deliver(ProductChange change) {
+        if (ownSequences.remove(change.getSequence())) {
+            return;
+        }
+        ProductInvalidation invalidation = ProductInvalidation.of(change, null);
+        subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+        productChangeFeed.onProductChange(change);
+    }
+}
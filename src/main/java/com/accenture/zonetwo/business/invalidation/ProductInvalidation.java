@@ -0,0 +1,29 @@
+package com.accenture.zonetwo.business.invalidation;
+
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.model.ProductChange;
+import lombok.Value;
+
+/**
+ * Tells other nodes that a product changed. It names the product rather than carrying its state, which
+ * receivers reload.
+ */
+@Value
+public class ProductInvalidation {
+
+    ProductChangedEvent.Type type;
+    Long productId;
+    /**
+     * Position of the change in the outbox.
+     */
+    Long sequence;
+    /**
+     * Node that made the change, or null when the bus cannot tell.
+     */
+    String origin;
+
+    public static ProductInvalidation of(ProductChange change, String origin) {
+        return new ProductInvalidation(ProductChangedEvent.Type.valueOf(change.getType().name()),
+                change.getProductId(), change.getSequence(), origin);
+    }
+}
@@ -0,0 +1,155 @@
+package com.accenture.zonetwo.business.invalidation;
+
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.business.repository.ProductRepository;
+import com.accenture.zonetwo.model.Product;
+import com.accenture.zonetwo.model.ProductChange;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps this node's in-memory catalog state coherent with the writes of other nodes. It announces every
+ * change this node commits on the {@link InvalidationBus}. Invalidations from other nodes are coalesced
+ * by product and applied every {@code product.invalidation.flush-interval}. Applying means reloading
+ * the products and publishing them as {@link ProductChangedEvent}s, which the caches, indexes, snapshot
+ * and catalog version follow as they do local writes. Products this node changes while a flush is reading
+ * them are not published: the local write announces a state at least as new, and a later remote write
+ * sends another invalidation.
+ * A remote write is therefore visible here within the bus delay plus one flush interval.
+ * Does nothing unless a bus is configured.
+ */
+@Log4j2
+@Component
+public class ProductInvalidationRelay implements MeterBinder {
+
+    @Autowired(required = false)
+    InvalidationBus invalidationBus;
+    @Autowired
+    ProductRepository productRepository;
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Value("${product.batch.chunk-size:500}")
+    int chunkSize;
+
+    private final String nodeId;
+    /**
+     * Products to reload by id. A deletion is final, as ids are never reused.
+     */
+    private final Map<Long, ProductChangedEvent.Type> pending = new ConcurrentHashMap<>();
+    /**
+     * Products changed by this node since the running flush started reading, or null between flushes.
+     */
+    private volatile Set<Long> changedWhileFlushing;
+    private final LongAdder received = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+
+    public ProductInvalidationRelay(@Value("${product.invalidation.node-id:}") String nodeId) {
+        this.nodeId = nodeId.isEmpty() ? UUID.randomUUID().toString() : nodeId;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (invalidationBus == null) {
+            return;
+        }
+        invalidationBus.subscribe(this::receive);
+        log.info("Product invalidations relayed as node {} over {}", nodeId, invalidationBus.getClass().getSimpleName());
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Announces a change once its transaction has committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChange change) {
+        if (invalidationBus != null) {
+            Set<Long> changed = changedWhileFlushing;
+            if (changed != null) {
+                changed.add(change.getProductId());
+            }
+            invalidationBus.publish(ProductInvalidation.of(change, nodeId));
+        }
+    }
+
+    void receive(ProductInvalidation invalidation) {
+        if (nodeId.equals(invalidation.getOrigin())) {
+            return;
+        }
+        received.increment();
+        pending.merge(invalidation.getProductId(), invalidation.getType(), (current, next) ->
+                current == ProductChangedEvent.Type.DELETED ? current : next);
+    }
+
+    @Scheduled(fixedDelayString = "${product.invalidation.flush-interval:PT0.2S}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Long> savedIds = new ArrayList<>();
+        List<Long> deletedIds = new ArrayList<>();
+        for (Long id : pending.keySet()) {
+            ProductChangedEvent.Type type = pending.remove(id);
+            (type == ProductChangedEvent.Type.DELETED ? deletedIds : savedIds).add(id);
+        }
+        Set<Long> changedLocally = ConcurrentHashMap.newKeySet();
+        changedWhileFlushing = changedLocally;
+        try {
+            for (int from = 0; from < savedIds.size(); from += chunkSize) {
+                List<Long> chunk = savedIds.subList(from, Math.min(from + chunkSize, savedIds.size()));
+                // Not read-only, so it runs on the primary: a replica may not have the change yet
+                List<Product> products = transactionTemplate.execute(status -> productRepository.findProductsByIdIn(chunk));
+                Set<Long> foundIds = products.stream().map(Product::getId).collect(Collectors.toSet());
+                // A local write that committed meanwhile publishes its own, newer state
+                products.stream().filter(product -> !changedLocally.contains(product.getId()))
+                        .forEach(product -> eventPublisher.publishEvent(ProductChangedEvent.saved(product)));
+                // Deleted again since the invalidation was sent
+                chunk.stream().filter(id -> !foundIds.contains(id))
+                        .forEach(id -> eventPublisher.publishEvent(ProductChangedEvent.deleted(id)));
+            }
+        } finally {
+            changedWhileFlushing = null;
+        }
+        deletedIds.forEach(id -> eventPublisher.publishEvent(ProductChangedEvent.deleted(id)));
+        applied.add(savedIds.size() + deletedIds.size());
+        log.debug("Applied invalidations of {} saved and {} deleted products", savedIds.size(), deletedIds.size());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("product.invalidation.received", received, LongAdder::sum)
+                .description("Invalidations received from other nodes")
+                .register(registry);
+        FunctionCounter.builder("product.invalidation.applied", applied, LongAdder::sum)
+                .description("Products reloaded or evicted after coalescing invalidations")
+                .register(registry);
+        Gauge.builder("product.invalidation.pending", pending, Map::size)
+                .description("Products waiting for the next invalidation flush")
+                .register(registry);
+    }
+}
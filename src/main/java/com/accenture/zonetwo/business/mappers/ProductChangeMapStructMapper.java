@@ -0,0 +1,21 @@
+package com.accenture.zonetwo.business.mappers;
+
+import com.accenture.zonetwo.business.repository.model.ProductChangeDAO;
+import com.accenture.zonetwo.model.Product;
+import com.accenture.zonetwo.model.ProductChange;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface ProductChangeMapStructMapper {
+    @Mapping(target = "sequence", source = "id")
+    @Mapping(target = "product", expression = "java(productOf(productChangeDAO))")
+    ProductChange productChangeDAOToProductChange(ProductChangeDAO productChangeDAO);
+
+    default Product productOf(ProductChangeDAO productChangeDAO) {
+        if (ProductChange.Type.DELETED.name().equals(productChangeDAO.getType())) {
+            return null;
+        }
+        return new Product(productChangeDAO.getProductId(), productChangeDAO.getName(), productChangeDAO.getPrice());
+    }
+}
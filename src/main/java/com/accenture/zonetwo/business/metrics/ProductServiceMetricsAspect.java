@@ -0,0 +1,71 @@
+package com.accenture.zonetwo.business.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.Optional;
+
+/**
+ * Times every {@link com.accenture.zonetwo.business.service.ProductService} call as {@code product.service},
+ * tagged with the method and its outcome: found, not_found, conflict, success or error. A write rejected
+ * because the product is missing counts as not_found, one rejected as a duplicate or as a stale version
+ * (a failed precondition) as conflict.
+ */
+@Aspect
+@Component
+public class ProductServiceMetricsAspect {
+    static final String METRIC_NAME = "product.service";
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Around("execution(* com.accenture.zonetwo.business.service.ProductService.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            Object result = joinPoint.proceed();
+            outcome = outcomeOf(result);
+            return result;
+        } catch (HttpClientErrorException e) {
+            outcome = outcomeOf(e.getStatusCode());
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(METRIC_NAME)
+                    .description("Product service calls")
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String outcomeOf(HttpStatus status) {
+        switch (status) {
+            case NOT_FOUND:
+                return "not_found";
+            case CONFLICT:
+            case PRECONDITION_FAILED:
+                return "conflict";
+            default:
+                return "error";
+        }
+    }
+
+    private static String outcomeOf(Object result) {
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? "found" : "not_found";
+        }
+        if (result instanceof Boolean) {
+            return (Boolean) result ? "found" : "not_found";
+        }
+        return "success";
+    }
+}
@@ -0,0 +1,201 @@
+package com.accenture.zonetwo.business.outbox;
+
+import com.accenture.zonetwo.model.ProductChange;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Fans committed product changes out to live subscribers. A subscription first replays the outbox after
+ * the requested sequence, then follows new changes. Delivery runs on feed threads, never on the writer's:
+ * writers only enqueue, and a subscriber that falls more than {@code product.changes.subscriber-buffer}
+ * changes behind is closed, so it can resume from its last sequence instead of holding memory.
+ * <p>
+ * Changes are delivered strictly in sequence order, so the last sequence is always a safe resume point.
+ * Sequences are taken at insert time, so a change can commit after a later one; when a live change skips a
+ * sequence, the subscription goes back to the outbox and waits there until the skipped change commits or
+ * {@code product.changes.gap-timeout} has passed (see {@link ProductChangeOutbox#contiguousPrefix}).
+ */
+@Log4j2
+@Component
+public class ProductChangeFeed {
+    static final int REPLAY_PAGE_SIZE = 500;
+    /**
+     * How long a replay stopped at a skipped sequence waits before reading the outbox again.
+     */
+    static final long GAP_RETRY_MILLIS = 200;
+
+    @Autowired
+    ProductChangeOutbox productChangeOutbox;
+    @Value("${product.changes.gap-timeout:10s}")
+    Duration gapTimeout;
+    Executor executor = newExecutor();
+
+    private final int bufferSize;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    public ProductChangeFeed(@Value("${product.changes.subscriber-buffer:1000}") int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * @param after   sequence to resume after; 0 replays every retained change
+     * @param consumer receives the changes in order; when it throws, the subscription is closed
+     * @param onClose runs once when the subscription is closed, by either side
+     */
+    public Subscription subscribe(Long after, Consumer<ProductChange> consumer, Runnable onClose) {
+        Subscription subscription = new Subscription(after, consumer, onClose);
+        subscriptions.add(subscription);
+        executor.execute(subscription::replay);
+        return subscription;
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChange change) {
+        subscriptions.forEach(subscription -> subscription.offer(change));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.forEach(Subscription::close);
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
+    private static ExecutorService newExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "product-change-feed-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public class Subscription implements AutoCloseable {
+        private final Consumer<ProductChange> consumer;
+        private final Runnable onClose;
+        private final BlockingQueue<ProductChange> pending = new ArrayBlockingQueue<>(bufferSize);
+        // Held by the replay until it has caught up, so live changes only queue up meanwhile
+        private final AtomicBoolean draining = new AtomicBoolean(true);
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile long lastSequence;
+
+        Subscription(Long after, Consumer<ProductChange> consumer, Runnable onClose) {
+            this.consumer = consumer;
+            this.onClose = onClose;
+            this.lastSequence = after;
+        }
+
+        public long getLastSequence() {
+            return lastSequence;
+        }
+
+        @Override
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            subscriptions.remove(this);
+            pending.clear();
+            onClose.run();
+        }
+
+        void replay() {
+            try {
+                List<ProductChange> page;
+                int contiguous;
+                do {
+                    page = productChangeOutbox.findChangesAfter(lastSequence, REPLAY_PAGE_SIZE);
+                    contiguous = ProductChangeOutbox.contiguousPrefix(lastSequence, page, gapTimeout);
+                    page.subList(0, contiguous).forEach(this::deliver);
+                } while (contiguous == REPLAY_PAGE_SIZE && !closed.get());
+                if (contiguous < page.size() && !closed.get()) {
+                    replayLater();
+                    return;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Product change replay failed", e);
+                close();
+                return;
+            }
+            draining.set(false);
+            scheduleDrain();
+        }
+
+        private void replayLater() {
+            CompletableFuture.delayedExecutor(GAP_RETRY_MILLIS, TimeUnit.MILLISECONDS, executor).execute(this::replay);
+        }
+
+        void offer(ProductChange change) {
+            if (closed.get()) {
+                return;
+            }
+            if (!pending.offer(change)) {
+                log.warn("Product change subscriber fell {} changes behind and is closed", bufferSize);
+                close();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (!pending.isEmpty() && !closed.get() && draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            ProductChange change;
+            while (!closed.get() && (change = pending.peek()) != null) {
+                // Changes queued while replaying may already have been read from the outbox
+                if (change.getSequence() > lastSequence + 1) {
+                    // An earlier change has not committed yet, or not on this node: wait for it in the outbox
+                    replayLater();
+                    return;
+                }
+                pending.poll();
+                if (change.getSequence() > lastSequence) {
+                    deliver(change);
+                }
+            }
+            draining.set(false);
+            scheduleDrain();
+        }
+
+        private void deliver(ProductChange change) {
+            if (closed.get()) {
+                return;
+            }
+            try {
+                consumer.accept(change);
+                lastSequence = Math.max(lastSequence, change.getSequence());
+            } catch (RuntimeException e) {
+                log.debug("Product change subscriber failed, closing it", e);
+                close();
+            }
+        }
+    }
+}
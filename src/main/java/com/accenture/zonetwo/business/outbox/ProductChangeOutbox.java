@@ -0,0 +1,167 @@
+package com.accenture.zonetwo.business.outbox;
+
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.business.mappers.ProductChangeMapStructMapper;
+import com.accenture.zonetwo.business.repository.ProductChangeRepository;
+import com.accenture.zonetwo.business.repository.model.ProductChangeDAO;
+import com.accenture.zonetwo.model.ProductChange;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional outbox of product changes. Writers append to it inside the transaction that changes the
+ * catalog, so the log holds exactly the committed changes; each appended {@link ProductChange} is also
+ * published as an event, which {@link ProductChangeFeed} receives once the transaction commits.
+ */
+@Log4j2
+@Component
+public class ProductChangeOutbox {
+    static final String INSERT_CHANGE =
+            "insert into product_change (type, product_id, name, price, changed_at) values (?, ?, ?, ?, ?)";
+
+    @Autowired
+    ProductChangeRepository productChangeRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    ProductChangeMapStructMapper productChangeMapStructMapper;
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+    @Value("${product.changes.retention:7d}")
+    Duration retention;
+    @Value("${product.changes.gap-timeout:10s}")
+    Duration gapTimeout;
+
+    /**
+     * Must be called inside the transaction that makes the changes.
+     */
+    public void append(List<ProductChangedEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<ProductChangeDAO> productChangeDAOList = insert(
+                events.stream().map(ProductChangeOutbox::toProductChangeDAO).collect(Collectors.toList()));
+        productChangeDAOList.stream()
+                .map(productChangeMapStructMapper::productChangeDAOToProductChange)
+                .forEach(eventPublisher::publishEvent);
+    }
+
+    /**
+     * Inserts the changes as one JDBC batch. Hibernate cannot batch inserts into an identity column, as it
+     * reads each id back before the next insert; the driver hands the batch's ids back all at once instead.
+     * Runs on the connection of the surrounding transaction.
+     */
+    private List<ProductChangeDAO> insert(List<ProductChangeDAO> productChangeDAOList) {
+        Timestamp changedAt = Timestamp.from(Instant.now());
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_CHANGE, Statement.RETURN_GENERATED_KEYS)) {
+                for (ProductChangeDAO productChangeDAO : productChangeDAOList) {
+                    statement.setString(1, productChangeDAO.getType());
+                    statement.setLong(2, productChangeDAO.getProductId());
+                    statement.setObject(3, productChangeDAO.getName(), Types.VARCHAR);
+                    statement.setObject(4, productChangeDAO.getPrice(), Types.DOUBLE);
+                    statement.setTimestamp(5, changedAt);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet ids = statement.getGeneratedKeys()) {
+                    for (ProductChangeDAO productChangeDAO : productChangeDAOList) {
+                        if (!ids.next()) {
+                            throw new IllegalStateException("Missing generated id for product change " + productChangeDAO);
+                        }
+                        productChangeDAO.setId(ids.getLong(1));
+                        productChangeDAO.setChangedAt(changedAt.toInstant());
+                    }
+                }
+            }
+            return null;
+        });
+        return productChangeDAOList;
+    }
+
+    public List<ProductChange> findChangesAfter(Long sequence, int size) {
+        return productChangeRepository.findByIdGreaterThanOrderByIdAsc(sequence, PageRequest.of(0, size)).stream()
+                .map(productChangeMapStructMapper::productChangeDAOToProductChange)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Like {@link #findChangesAfter}, but ends before the first skipped sequence that may still commit, so a
+     * reader that resumes after the last change returned never passes over one.
+     */
+    public List<ProductChange> findContiguousChangesAfter(Long sequence, int size) {
+        List<ProductChange> changes = findChangesAfter(sequence, size);
+        return changes.subList(0, contiguousPrefix(sequence, changes, gapTimeout));
+    }
+
+    /**
+     * Sequences follow insert order, not commit order: a transaction holding an earlier sequence may commit
+     * after later ones are readable. A skipped sequence is only passed over once the change after it is
+     * older than the gap timeout, and is then taken for rolled back.
+     *
+     * @return how many of the changes read after the sequence come before a skip that may still fill
+     */
+    static int contiguousPrefix(long sequence, List<ProductChange> changes, Duration gapTimeout) {
+        Instant settled = Instant.now().minus(gapTimeout);
+        long expected = sequence + 1;
+        for (int i = 0; i < changes.size(); i++) {
+            ProductChange change = changes.get(i);
+            if (change.getSequence() != expected && change.getChangedAt().isAfter(settled)) {
+                return i;
+            }
+            expected = change.getSequence() + 1;
+        }
+        return changes.size();
+    }
+
+    /**
+     * @return the changes among the given sequences that are committed, in sequence order
+     */
+    public List<ProductChange> findChanges(Collection<Long> sequences) {
+        return productChangeRepository.findByIdInOrderByIdAsc(sequences).stream()
+                .map(productChangeMapStructMapper::productChangeDAOToProductChange)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the sequence of the last committed change, or 0 when there is none
+     */
+    public long latestSequence() {
+        return productChangeRepository.findTopByOrderByIdDesc().map(ProductChangeDAO::getId).orElse(0L);
+    }
+
+    @Scheduled(fixedDelayString = "${product.changes.prune-interval:PT1H}")
+    public void prune() {
+        int pruned = productChangeRepository.deleteChangedBefore(Instant.now().minus(retention));
+        log.info("Pruned {} product changes older than {}", pruned, retention);
+    }
+
+    private static ProductChangeDAO toProductChangeDAO(ProductChangedEvent event) {
+        ProductChangeDAO productChangeDAO = new ProductChangeDAO();
+        productChangeDAO.setType(event.getType().name());
+        productChangeDAO.setProductId(event.getId());
+        if (event.getProduct() != null) {
+            productChangeDAO.setName(event.getProduct().getName());
+            productChangeDAO.setPrice(event.getProduct().getPrice());
+        }
+        return productChangeDAO;
+    }
+}
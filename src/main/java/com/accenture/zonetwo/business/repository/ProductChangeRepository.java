@@ -0,0 +1,30 @@
+package com.accenture.zonetwo.business.repository;
+
+import com.accenture.zonetwo.business.repository.model.ProductChangeDAO;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ProductChangeRepository extends JpaRepository<ProductChangeDAO, Long> {
+
+    List<ProductChangeDAO> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<ProductChangeDAO> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    Optional<ProductChangeDAO> findTopByOrderByIdDesc();
+
+    @Transactional
+    @Modifying
+    @Query("delete from ProductChangeDAO c where c.changedAt < :before")
+    int deleteChangedBefore(@Param("before") Instant before);
+}
@@ -1,9 +1,115 @@
 package com.accenture.zonetwo.business.repository;
 
 import com.accenture.zonetwo.business.repository.model.ProductDAO;
+import com.accenture.zonetwo.model.PriceStatistics;
+import com.accenture.zonetwo.model.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface ProductRepository extends JpaRepository<ProductDAO, Long> {
+public interface ProductRepository extends JpaRepository<ProductDAO, Long>, ProductSearchRepository {
+
+    String STREAM_FETCH_SIZE = "500";
+    /**
+     * Builds {@link Product}s straight from the selected columns: no entity is hydrated, registered in the
+     * persistence context or snapshotted for dirty checking, and no mapper copy is made.
+     */
+    String SELECT_PRODUCT = "select new com.accenture.zonetwo.model.Product(p.id, p.name, p.price, p.version,"
+            + " p.updatedAt) from ProductDAO p";
+
+    // Preconditions of writes, so they must read the primary: a lagging replica would let a duplicate through
+    boolean existsByNameAndPrice(String name, Double price);
+
+    boolean existsByNameAndPriceAndIdNot(String name, Double price, Long id);
+
+    List<ProductDAO> findByNameIn(Collection<String> names);
+
+    // Read-only transactions may be served by a replica, see ReadWriteRoutingDataSource
+    @Transactional(readOnly = true)
+    long countByPriceLessThan(Double price);
+
+    @Query("select new com.accenture.zonetwo.model.PriceStatistics(count(p), min(p.price), max(p.price), sum(p.price))"
+            + " from ProductDAO p")
+    @Transactional(readOnly = true)
+    PriceStatistics findPriceStatistics();
+
+    @Query("select p.id from ProductDAO p where p.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query(SELECT_PRODUCT + " where p.id = :id")
+    @Transactional(readOnly = true)
+    Optional<Product> findProductById(@Param("id") Long id);
+
+    @Query(SELECT_PRODUCT + " where p.id in :ids")
+    List<Product> findProductsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(SELECT_PRODUCT + " order by p.id")
+    @Transactional(readOnly = true)
+    List<Product> findAllProducts();
+
+    @Query(SELECT_PRODUCT + " where p.id > :id order by p.id")
+    @Transactional(readOnly = true)
+    List<Product> findProductsByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Deletes the product in one statement, without loading it first.
+     *
+     * @return 1 when deleted, 0 when there was no such product
+     */
+    @Modifying
+    @Query("delete from ProductDAO p where p.id = :id")
+    int deleteProductById(@Param("id") Long id);
+
+    @Query("select p.version from ProductDAO p where p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Updates the product in one statement whatever its version, bumping the version.
+     *
+     * @return 1 when updated, 0 when there was no such product
+     */
+    @Modifying
+    @Query("update ProductDAO p set p.name = :name, p.price = :price, p.updatedAt = :updatedAt,"
+            + " p.version = p.version + 1 where p.id = :id")
+    int updateProduct(@Param("id") Long id, @Param("name") String name, @Param("price") Double price,
+                      @Param("updatedAt") Instant updatedAt);
+
+    /**
+     * Updates the product in one statement if it is still at the expected version, bumping the version.
+     *
+     * @return 1 when updated, 0 when the product is missing or at another version
+     */
+    @Modifying
+    @Query("update ProductDAO p set p.name = :name, p.price = :price, p.updatedAt = :updatedAt,"
+            + " p.version = p.version + 1 where p.id = :id and p.version = :version")
+    int updateIfVersion(@Param("id") Long id, @Param("name") String name, @Param("price") Double price,
+                        @Param("updatedAt") Instant updatedAt, @Param("version") Long version);
+
+    /**
+     * Streams the whole catalog in id order. Projected rows never enter the persistence context, so nothing
+     * accumulates there however large the catalog. Must be consumed inside a transaction and closed afterwards.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query(SELECT_PRODUCT + " order by p.id")
+    Stream<Product> streamAllProducts();
 }
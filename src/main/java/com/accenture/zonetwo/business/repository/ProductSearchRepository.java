@@ -0,0 +1,21 @@
+package com.accenture.zonetwo.business.repository;
+
+import com.accenture.zonetwo.business.repository.model.ProductDAO;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Search over the products table, built per call because the number of name conditions varies.
+ */
+public interface ProductSearchRepository {
+
+    /**
+     * Filters by lower-case LIKE patterns (escaped with {@code !}), each of which must match the name
+     * lower-cased and prefixed with a space, so {@code "% box%"} matches a word starting with "box", and by
+     * an inclusive price range. The patterns may be empty and the prices null to skip that filter.
+     *
+     * @return at most {@code limit} products, lowest ids first
+     */
+    List<ProductDAO> search(Collection<String> namePatterns, Double minPrice, Double maxPrice, int limit);
+}
@@ -0,0 +1,50 @@
+package com.accenture.zonetwo.business.repository;
+
+import com.accenture.zonetwo.business.repository.model.ProductDAO;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Criteria query behind {@link ProductSearchRepository}, picked up by Spring Data as a fragment of
+ * {@link ProductRepository}. Limits with {@code setMaxResults} rather than a page, so no count query runs.
+ */
+public class ProductSearchRepositoryImpl implements ProductSearchRepository {
+    private static final char LIKE_ESCAPE = '!';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Read-only transactions may be served by a replica, see ReadWriteRoutingDataSource
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductDAO> search(Collection<String> namePatterns, Double minPrice, Double maxPrice, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductDAO> query = builder.createQuery(ProductDAO.class);
+        Root<ProductDAO> product = query.from(ProductDAO.class);
+        List<Predicate> predicates = new ArrayList<>();
+        if (!namePatterns.isEmpty()) {
+            Expression<String> spacedName = builder.concat(" ", builder.lower(product.get("name")));
+            for (String namePattern : namePatterns) {
+                predicates.add(builder.like(spacedName, namePattern, LIKE_ESCAPE));
+            }
+        }
+        if (minPrice != null) {
+            predicates.add(builder.greaterThanOrEqualTo(product.get("price"), minPrice));
+        }
+        if (maxPrice != null) {
+            predicates.add(builder.lessThanOrEqualTo(product.get("price"), maxPrice));
+        }
+        query.select(product).where(predicates.toArray(new Predicate[0])).orderBy(builder.asc(product.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
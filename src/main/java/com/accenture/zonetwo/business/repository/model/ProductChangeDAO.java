@@ -0,0 +1,45 @@
+package com.accenture.zonetwo.business.repository.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Outbox row written in the same transaction as the product change it records.
+ * Ids come from an identity column rather than a pooled sequence, so they increase across nodes. They are
+ * taken at insert time, not commit time: a lower id can become visible after a higher one, or never.
+ * Appended by {@link com.accenture.zonetwo.business.outbox.ProductChangeOutbox} with a JDBC batch, as Hibernate
+ * does not batch identity inserts.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "product_change", indexes = @Index(name = "idx_product_change_changed_at", columnList = "changed_at"))
+public class ProductChangeDAO {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "type", length = 16, nullable = false)
+    private String type;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "name")
+    private String name;
+
+    @Column(name = "price")
+    private Double price;
+
+    @CreationTimestamp
+    @Column(name = "changed_at")
+    private Instant changedAt;
+}
@@ -3,18 +3,26 @@ package com.accenture.zonetwo.business.repository.model;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import javax.persistence.*;
+import java.time.Instant;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "product")
+@Table(name = "product", indexes = @Index(name = "idx_product_name_price", columnList = "name, price"))
 public class ProductDAO {
+    /**
+     * Ids each node reserves from product_seq at a time. The sequence holds the end of the last reserved
+     * block, so it must stay at least this far ahead of the highest id in use.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = ID_ALLOCATION_SIZE)
     @Column(name = "id")
     private Long id;
 
@@ -24,6 +32,14 @@ public class ProductDAO {
     @Column(name = "price")
     private Double price;
 
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0 not null")
+    private Long version;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
     public ProductDAO(Long id) {
         this.id = id;
     }
@@ -1,17 +1,57 @@
 package com.accenture.zonetwo.business.service;
 
+import com.accenture.zonetwo.model.PriceHistogram;
+import com.accenture.zonetwo.model.PriceStatistics;
 import com.accenture.zonetwo.model.Product;
+import com.accenture.zonetwo.model.ProductBatchResult;
+import com.accenture.zonetwo.model.ProductChange;
+import com.accenture.zonetwo.model.ProductSearchCriteria;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ProductService {
 
     Optional<Product> findProductById(Long id);
 
+    /**
+     * Cheaper than {@link #findProductById} when only existence matters: the product is not loaded.
+     */
+    boolean existsProduct(Long id);
+
     List<Product> findAllProducts();
 
+    List<Product> findProductsAfter(Long afterId, int size);
+
+    void streamAllProducts(Consumer<Product> consumer);
+
+    List<Product> searchProducts(ProductSearchCriteria criteria);
+
+    PriceStatistics getPriceStatistics();
+
+    /**
+     * @param bounds ascending bucket bounds, or null for the configured ones
+     */
+    PriceHistogram getPriceHistogram(List<Double> bounds);
+
+    List<ProductChange> findChangesAfter(Long sequence, int size);
+
     Product saveProduct(Product product) throws Exception;
 
-    void deleteProduct(Long id);
+    /**
+     * Updates an existing product, conditional on {@link Product#getVersion()} when it is set.
+     */
+    Product updateProduct(Product product);
+
+    /**
+     * @return whether there was a product to delete
+     */
+    boolean deleteProduct(Long id);
+
+    List<ProductBatchResult> saveProducts(List<Product> products);
+
+    List<ProductBatchResult> updateProducts(List<Product> products);
+
+    List<ProductBatchResult> deleteProducts(List<Long> ids);
 }
@@ -1,19 +1,51 @@
 package com.accenture.zonetwo.business.service.impl;
 
+import com.accenture.zonetwo.business.cache.CatalogVersion;
+import com.accenture.zonetwo.business.cache.ProductCache;
+import com.accenture.zonetwo.business.cache.ProductLookups;
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.business.index.ProductMatchIndex;
+import com.accenture.zonetwo.business.index.ProductPriceIndex;
+import com.accenture.zonetwo.business.index.ProductSearchIndex;
 import com.accenture.zonetwo.business.mappers.ProductMapStructMapper;
+import com.accenture.zonetwo.business.outbox.ProductChangeOutbox;
 import com.accenture.zonetwo.business.repository.ProductRepository;
 import com.accenture.zonetwo.business.repository.model.ProductDAO;
 import com.accenture.zonetwo.business.service.ProductService;
+import com.accenture.zonetwo.business.snapshot.CatalogSnapshot;
+import com.accenture.zonetwo.model.PriceHistogram;
+import com.accenture.zonetwo.model.PriceStatistics;
 import com.accenture.zonetwo.model.Product;
+import com.accenture.zonetwo.model.ProductBatchResult;
+import com.accenture.zonetwo.model.ProductChange;
+import com.accenture.zonetwo.model.ProductSearchCriteria;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.HttpClientErrorException;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Log4j2
 @Service
@@ -22,43 +54,461 @@ public class ProductServiceImpl implements ProductService {
     ProductRepository productRepository;
     @Autowired
     ProductMapStructMapper productMapStructMapper;
+    @Autowired
+    ProductMatchIndex productMatchIndex;
+    @Autowired
+    ProductSearchIndex productSearchIndex;
+    @Autowired
+    ProductPriceIndex productPriceIndex;
+    @Autowired
+    ProductCache productCache;
+    @Autowired
+    ProductLookups productLookups;
+    @Autowired
+    CatalogVersion catalogVersion;
+    @Autowired
+    CatalogSnapshot catalogSnapshot;
+    @Autowired
+    ProductChangeOutbox productChangeOutbox;
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Value("${product.batch.chunk-size:500}")
+    int batchChunkSize;
+    @Value("${product.datasource.replica-lag-tolerance:2s}")
+    Duration replicaLagTolerance;
 
     @Override
     public Optional<Product> findProductById(Long id) {
-        Optional<Product> productById = productRepository.findById(id)
-                .flatMap(product -> Optional.ofNullable(productMapStructMapper.productDAOToProduct(product)));
-        log.info("Product with id {} is {}", id, productById);
+        if (catalogSnapshot.isReady()) {
+            return catalogSnapshot.findById(id);
+        }
+        Optional<Product> productById = productCache.get(id, key -> productLookups.findById(key, this::loadProductById));
+        log.debug("Product with id {} is {}", id, productById);
         return productById;
     }
 
+    @Override
+    public boolean existsProduct(Long id) {
+        if (catalogSnapshot.isReady()) {
+            return catalogSnapshot.findById(id).isPresent();
+        }
+        Optional<Product> cached = productCache.getIfPresent(id);
+        boolean exists = cached != null ? cached.isPresent() : productRepository.existsById(id);
+        log.debug("Product with id {} exists: {}", id, exists);
+        return exists;
+    }
+
     @Override
     public List<Product> findAllProducts() {
-        List<ProductDAO> productDAOList = productRepository.findAll();
-        log.info("Get product list. Size is: {}", productDAOList::size);
+        if (catalogSnapshot.isReady()) {
+            List<Product> productList = catalogSnapshot.findAll();
+            log.debug("Get product list from snapshot. Size is: {}", productList::size);
+            return productList;
+        }
+        return productLookups.findAll(() -> {
+            // Not read-only right after a write, so it runs on the primary: a replica may not have it yet
+            List<Product> productList = catalogVersion.changedWithin(replicaLagTolerance)
+                    ? transactionTemplate.execute(status -> productRepository.findAllProducts())
+                    : productRepository.findAllProducts();
+            log.debug("Get product list. Size is: {}", productList::size);
+            return productList;
+        });
+    }
+
+    @Override
+    public List<Product> findProductsAfter(Long afterId, int size) {
+        List<Product> productList = productRepository.findProductsByIdGreaterThan(afterId, PageRequest.of(0, size));
+        log.debug("Get product page after id {}. Size is: {}", afterId, productList.size());
+        return productList;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllProducts(Consumer<Product> consumer) {
+        try (Stream<Product> productStream = productRepository.streamAllProducts()) {
+            productStream.forEach(consumer);
+        }
+        log.debug("Product list is streamed");
+    }
+
+    @Override
+    public List<ProductChange> findChangesAfter(Long sequence, int size) {
+        List<ProductChange> productChangeList = productChangeOutbox.findContiguousChangesAfter(sequence, size);
+        log.debug("Get product changes after sequence {}. Size is: {}", sequence, productChangeList.size());
+        return productChangeList;
+    }
+
+    @Override
+    public List<Product> searchProducts(ProductSearchCriteria criteria) {
+        if (productSearchIndex.isReady()) {
+            List<Product> productList = productSearchIndex.search(criteria);
+            log.debug("Search {} in index. Size is: {}", criteria, productList.size());
+            return productList;
+        }
+        List<ProductDAO> productDAOList = productRepository.search(namePatternsOf(criteria),
+                criteria.getMinPrice(), criteria.getMaxPrice(), criteria.getLimit());
+        log.debug("Search {} in database. Size is: {}", criteria, productDAOList.size());
         return productDAOList.stream().map(productMapStructMapper::productDAOToProduct).collect(Collectors.toList());
     }
 
+    @Override
+    public PriceStatistics getPriceStatistics() {
+        if (productPriceIndex.isReady()) {
+            return productPriceIndex.statistics();
+        }
+        PriceStatistics priceStatistics = productRepository.findPriceStatistics();
+        log.debug("Get price statistics from database: {}", priceStatistics);
+        return priceStatistics;
+    }
+
+    /**
+     * Without the index, counts the products below each bound in one read-only transaction, so the
+     * buckets add up even while products are written.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PriceHistogram getPriceHistogram(List<Double> bounds) {
+        List<Double> histogramBounds = bounds != null ? bounds : productPriceIndex.getDefaultBounds();
+        if (productPriceIndex.isReady()) {
+            return productPriceIndex.histogram(histogramBounds);
+        }
+        long[] counts = new long[histogramBounds.size() + 1];
+        long below = 0;
+        for (int i = 0; i < histogramBounds.size(); i++) {
+            long countBelow = productRepository.countByPriceLessThan(histogramBounds.get(i));
+            counts[i] = countBelow - below;
+            below = countBelow;
+        }
+        counts[histogramBounds.size()] = productRepository.count() - below;
+        log.debug("Get price histogram over {} from database", histogramBounds);
+        return PriceHistogram.of(histogramBounds, counts);
+    }
+
     @Override
     public Product saveProduct(Product product) throws Exception {
+        if(product.getId() != null) {
+            // An entity with an id but no version would be taken for a new one by JPA
+            return updateProduct(product);
+        }
+        if(!hasNoMatch(product)) {
+            log.error("Product conflict exception is thrown: {}", HttpStatus.CONFLICT);
+            throw new HttpClientErrorException(HttpStatus.CONFLICT);
+        }
+        Product savedProduct = transactionTemplate.execute(status -> {
+            ProductDAO productSaved = productRepository.save(productMapStructMapper.productToProductDAO(product));
+            // Flush so the mapped product carries the update timestamp
+            productRepository.flush();
+            log.debug("New product saved: {}", () -> productSaved);
+            Product saved = productMapStructMapper.productDAOToProduct(productSaved);
+            productChangeOutbox.append(List.of(ProductChangedEvent.saved(saved)));
+            return saved;
+        });
+        eventPublisher.publishEvent(ProductChangedEvent.saved(savedProduct));
+        return savedProduct;
+    }
+
+    @Override
+    public Product updateProduct(Product product) {
         if(!hasNoMatch(product)) {
             log.error("Product conflict exception is thrown: {}", HttpStatus.CONFLICT);
             throw new HttpClientErrorException(HttpStatus.CONFLICT);
         }
-        ProductDAO productSaved = productRepository.save(productMapStructMapper.productToProductDAO(product));
-        log.info("New product saved: {}", () -> productSaved);
-        return productMapStructMapper.productDAOToProduct(productSaved);
+        // Truncated to what the database column keeps, so the returned product matches the stored one
+        Instant updatedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        Product productUpdated = transactionTemplate.execute(status -> {
+            long version = product.getVersion() != null
+                    ? updateIfVersion(product, updatedAt) : updateWhateverVersion(product, updatedAt);
+            Product updated = new Product(product.getId(), product.getName(), product.getPrice(), version, updatedAt);
+            productChangeOutbox.append(List.of(ProductChangedEvent.saved(updated)));
+            return updated;
+        });
+        log.debug("Product updated: {}", productUpdated);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(productUpdated));
+        return productUpdated;
+    }
+
+    /**
+     * @return the version the update wrote
+     */
+    private long updateIfVersion(Product product, Instant updatedAt) {
+        if(productRepository.updateIfVersion(product.getId(), product.getName(), product.getPrice(),
+                updatedAt, product.getVersion()) == 0) {
+            // Only the failure path pays for telling a stale version from a missing product
+            HttpStatus failure = productRepository.existsById(product.getId())
+                    ? HttpStatus.PRECONDITION_FAILED : HttpStatus.NOT_FOUND;
+            log.warn("Product with id {} is not updated: {}", product.getId(), failure);
+            throw new HttpClientErrorException(failure);
+        }
+        return product.getVersion() + 1;
+    }
+
+    /**
+     * Updates a product the client sent no version for, so a concurrent write cannot fail it.
+     *
+     * @return the version the update wrote, read under the row lock the update holds
+     */
+    private long updateWhateverVersion(Product product, Instant updatedAt) {
+        if(productRepository.updateProduct(product.getId(), product.getName(), product.getPrice(), updatedAt) == 0) {
+            log.warn("Product with id {} is not updated: {}", product.getId(), HttpStatus.NOT_FOUND);
+            throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+        }
+        return productRepository.findVersionById(product.getId())
+                .orElseThrow(() -> new IllegalStateException("Updated product " + product.getId() + " has no version"));
     }
 
     @Override
-    public void deleteProduct(Long id) {
-        productRepository.deleteById(id);
+    public boolean deleteProduct(Long id) {
+        boolean deleted = transactionTemplate.execute(status -> {
+            if (productRepository.deleteProductById(id) == 0) {
+                return false;
+            }
+            productChangeOutbox.append(List.of(ProductChangedEvent.deleted(id)));
+            return true;
+        });
+        if (!deleted) {
+            log.warn("Product with id {} is not deleted: not found", id);
+            return false;
+        }
+        // Evicts the product from the cache, indexes and snapshot
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
         log.info("Product with id {} was deleted", id);
+        return true;
+    }
+
+    @Override
+    public List<ProductBatchResult> saveProducts(List<Product> products) {
+        List<ProductBatchResult> results = new ArrayList<>(products.size());
+        Set<Map.Entry<String, Double>> batchKeys = new HashSet<>();
+        for (int from = 0; from < products.size(); from += batchChunkSize) {
+            List<Product> chunk = products.subList(from, Math.min(from + batchChunkSize, products.size()));
+            results.addAll(saveChunk(chunk, from, batchKeys));
+        }
+        log.info("Batch of {} products saved", products.size());
+        return results;
+    }
+
+    @Override
+    public List<ProductBatchResult> updateProducts(List<Product> products) {
+        List<ProductBatchResult> results = new ArrayList<>(products.size());
+        Set<Map.Entry<String, Double>> batchKeys = new HashSet<>();
+        Set<Long> batchIds = new HashSet<>();
+        for (int from = 0; from < products.size(); from += batchChunkSize) {
+            List<Product> chunk = products.subList(from, Math.min(from + batchChunkSize, products.size()));
+            results.addAll(updateChunk(chunk, from, batchKeys, batchIds));
+        }
+        log.info("Batch of {} products updated", products.size());
+        return results;
+    }
+
+    @Override
+    public List<ProductBatchResult> deleteProducts(List<Long> ids) {
+        List<ProductBatchResult> results = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += batchChunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + batchChunkSize, ids.size()));
+            results.addAll(deleteChunk(chunk, from));
+        }
+        log.info("Batch of {} products deleted", ids.size());
+        return results;
     }
 
     public boolean hasNoMatch(Product product) {
-        return productRepository.findAll().stream()
-                .noneMatch(t -> !t.getId().equals(product.getId()) &&
-                        t.getName().equals(product.getName()) &&
-                        t.getPrice().equals(product.getPrice()));
+        if (productMatchIndex.isReady()) {
+            return !productMatchIndex.hasMatch(product);
+        }
+        if (product.getId() == null) {
+            return !productRepository.existsByNameAndPrice(product.getName(), product.getPrice());
+        }
+        return !productRepository.existsByNameAndPriceAndIdNot(product.getName(), product.getPrice(), product.getId());
+    }
+
+    /**
+     * Reads a product changed within the replica lag tolerance on the primary, so that the cache is not
+     * filled from a replica that may not have the change yet.
+     */
+    private Optional<Product> loadProductById(Long id) {
+        if (productCache.isRecentlyInvalidated(id)) {
+            return transactionTemplate.execute(status -> productRepository.findProductById(id));
+        }
+        return productRepository.findProductById(id);
+    }
+
+    private List<ProductBatchResult> saveChunk(List<Product> chunk, int offset, Set<Map.Entry<String, Double>> batchKeys) {
+        List<ProductBatchResult> results = new ArrayList<>(chunk.size());
+        List<Product> candidates = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Product product = chunk.get(i);
+            ProductBatchResult result = new ProductBatchResult(offset + i, product.getId(), null);
+            if (product.getId() != null || !isValid(product)) {
+                result.setStatus(ProductBatchResult.Status.INVALID);
+            } else if (!batchKeys.add(keyOf(product))) {
+                result.setStatus(ProductBatchResult.Status.CONFLICT);
+            } else {
+                candidates.add(product);
+            }
+            results.add(result);
+        }
+
+        Predicate<Product> storedMatch = storedMatches(candidates);
+        List<ProductBatchResult> pending = new ArrayList<>();
+        List<ProductDAO> productDAOList = new ArrayList<>();
+        for (ProductBatchResult result : results) {
+            if (result.getStatus() != null) {
+                continue;
+            }
+            Product product = chunk.get(result.getIndex() - offset);
+            if (storedMatch.test(product)) {
+                result.setStatus(ProductBatchResult.Status.CONFLICT);
+            } else {
+                pending.add(result);
+                productDAOList.add(productMapStructMapper.productToProductDAO(product));
+            }
+        }
+        if (productDAOList.isEmpty()) {
+            return results;
+        }
+
+        List<Product> productsSaved = transactionTemplate.execute(status -> {
+            List<ProductDAO> productDAOSaved = productRepository.saveAll(productDAOList);
+            productRepository.flush();
+            List<Product> saved = productDAOSaved.stream()
+                    .map(productMapStructMapper::productDAOToProduct).collect(Collectors.toList());
+            productChangeOutbox.append(saved.stream().map(ProductChangedEvent::saved).collect(Collectors.toList()));
+            return saved;
+        });
+        for (int i = 0; i < pending.size(); i++) {
+            Product productSaved = productsSaved.get(i);
+            pending.get(i).setId(productSaved.getId());
+            pending.get(i).setStatus(ProductBatchResult.Status.CREATED);
+            eventPublisher.publishEvent(ProductChangedEvent.saved(productSaved));
+        }
+        return results;
+    }
+
+    private List<ProductBatchResult> updateChunk(List<Product> chunk, int offset,
+                                                 Set<Map.Entry<String, Double>> batchKeys, Set<Long> batchIds) {
+        List<ProductBatchResult> results = new ArrayList<>(chunk.size());
+        List<Product> candidates = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Product product = chunk.get(i);
+            ProductBatchResult result = new ProductBatchResult(offset + i, product.getId(), null);
+            if (product.getId() == null || !isValid(product)) {
+                result.setStatus(ProductBatchResult.Status.INVALID);
+            } else if (!batchIds.add(product.getId()) || !batchKeys.add(keyOf(product))) {
+                result.setStatus(ProductBatchResult.Status.CONFLICT);
+            } else {
+                candidates.add(product);
+            }
+            results.add(result);
+        }
+        if (candidates.isEmpty()) {
+            return results;
+        }
+
+        Predicate<Product> storedMatch = storedMatches(candidates);
+        List<Product> productsUpdated = transactionTemplate.execute(status -> {
+            Map<Long, ProductDAO> productDAOById = productRepository.findAllById(
+                            candidates.stream().map(Product::getId).collect(Collectors.toList()))
+                    .stream().collect(Collectors.toMap(ProductDAO::getId, Function.identity()));
+            List<ProductDAO> updated = new ArrayList<>();
+            for (ProductBatchResult result : results) {
+                if (result.getStatus() != null) {
+                    continue;
+                }
+                Product product = chunk.get(result.getIndex() - offset);
+                ProductDAO productDAO = productDAOById.get(product.getId());
+                if (productDAO == null) {
+                    result.setStatus(ProductBatchResult.Status.NOT_FOUND);
+                } else if (product.getVersion() != null && !product.getVersion().equals(productDAO.getVersion())) {
+                    result.setStatus(ProductBatchResult.Status.CONFLICT);
+                } else if (storedMatch.test(product)) {
+                    result.setStatus(ProductBatchResult.Status.CONFLICT);
+                } else {
+                    productDAO.setName(product.getName());
+                    productDAO.setPrice(product.getPrice());
+                    result.setStatus(ProductBatchResult.Status.UPDATED);
+                    updated.add(productDAO);
+                }
+            }
+            // Flush so the mapped products carry the new update timestamps
+            productRepository.flush();
+            List<Product> mapped = updated.stream().map(productMapStructMapper::productDAOToProduct).collect(Collectors.toList());
+            productChangeOutbox.append(mapped.stream().map(ProductChangedEvent::saved).collect(Collectors.toList()));
+            return mapped;
+        });
+        productsUpdated.forEach(product -> eventPublisher.publishEvent(ProductChangedEvent.saved(product)));
+        return results;
+    }
+
+    private List<ProductBatchResult> deleteChunk(List<Long> chunk, int offset) {
+        List<Long> ids = chunk.stream().filter(Objects::nonNull).collect(Collectors.toList());
+        Set<Long> deletedIds = ids.isEmpty() ? Set.of() : new HashSet<>(transactionTemplate.execute(status -> {
+            List<Long> existingIds = productRepository.findExistingIds(ids);
+            if (!existingIds.isEmpty()) {
+                productRepository.deleteAllByIdInBatch(existingIds);
+                productChangeOutbox.append(existingIds.stream().map(ProductChangedEvent::deleted).collect(Collectors.toList()));
+            }
+            return existingIds;
+        }));
+        deletedIds.forEach(id -> eventPublisher.publishEvent(ProductChangedEvent.deleted(id)));
+
+        List<ProductBatchResult> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Long id = chunk.get(i);
+            ProductBatchResult.Status status = id == null ? ProductBatchResult.Status.INVALID
+                    : deletedIds.contains(id) ? ProductBatchResult.Status.DELETED
+                    : ProductBatchResult.Status.NOT_FOUND;
+            results.add(new ProductBatchResult(offset + i, id, status));
+        }
+        return results;
+    }
+
+    /**
+     * Checks a whole chunk against stored products with one query, with the same semantics as {@link #hasNoMatch}.
+     */
+    private Predicate<Product> storedMatches(List<Product> products) {
+        if (productMatchIndex.isReady()) {
+            return productMatchIndex::hasMatch;
+        }
+        if (products.isEmpty()) {
+            return product -> false;
+        }
+        Map<Map.Entry<String, Double>, List<Long>> storedIdsByKey = productRepository.findByNameIn(
+                        products.stream().map(Product::getName).collect(Collectors.toSet()))
+                .stream().collect(Collectors.groupingBy(
+                        productDAO -> Map.entry(productDAO.getName(), productDAO.getPrice()),
+                        Collectors.mapping(ProductDAO::getId, Collectors.toList())));
+        return product -> storedIdsByKey.getOrDefault(keyOf(product), List.of()).stream()
+                .anyMatch(id -> !id.equals(product.getId()));
+    }
+
+    /**
+     * LIKE patterns for the database fallback of {@link #searchProducts}, matched against the name prefixed
+     * with a space. PREFIX takes one pattern per query word, split as the index splits them, for a word of
+     * the name to start with; unlike the index, only spaces separate the words of the name.
+     */
+    private static List<String> namePatternsOf(ProductSearchCriteria criteria) {
+        if (!criteria.hasName()) {
+            return List.of();
+        }
+        if (criteria.getMatch() == ProductSearchCriteria.Match.CONTAINS) {
+            return List.of("%" + escapeLike(criteria.getName().trim().toLowerCase(Locale.ROOT)) + "%");
+        }
+        return ProductSearchIndex.wordsOfName(criteria.getName()).stream()
+                .map(word -> "% " + escapeLike(word) + "%")
+                .collect(Collectors.toList());
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    private static boolean isValid(Product product) {
+        return product.getName() != null && !product.getName().isEmpty() && product.getPrice() != null;
+    }
+
+    private static Map.Entry<String, Double> keyOf(Product product) {
+        return Map.entry(product.getName(), product.getPrice());
     }
 }
@@ -0,0 +1,148 @@
+package com.accenture.zonetwo.business.snapshot;
+
+import com.accenture.zonetwo.model.Product;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+/**
+ * Immutable column-oriented copy of the catalog, sorted by id. Ids, prices, versions and update
+ * timestamps are primitive arrays; names are UTF-8 bytes packed back to back in one direct (off-heap)
+ * buffer, addressed by an offset array. A row costs about 36 bytes of heap plus its name bytes,
+ * against several boxed objects per row for a list of {@link Product}s.
+ */
+public final class CatalogColumns {
+    private static final long ABSENT = Long.MIN_VALUE;
+    private static final long ARRAY_HEADER_BYTES = 16;
+
+    private final int size;
+    private final long[] ids;
+    private final double[] prices;
+    private final long[] versions;
+    private final long[] updatedAtMicros;
+    private final int[] nameOffsets;
+    private final ByteBuffer names;
+
+    private CatalogColumns(int size, long[] ids, double[] prices, long[] versions, long[] updatedAtMicros,
+                           int[] nameOffsets, ByteBuffer names) {
+        this.size = size;
+        this.ids = ids;
+        this.prices = prices;
+        this.versions = versions;
+        this.updatedAtMicros = updatedAtMicros;
+        this.nameOffsets = nameOffsets;
+        this.names = names;
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the row of the id, or a negative value when it is absent
+     */
+    public int indexOf(long id) {
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    public long idAt(int index) {
+        return ids[index];
+    }
+
+    public Long versionAt(int index) {
+        return versions[index] == ABSENT ? null : versions[index];
+    }
+
+    public Product get(int index) {
+        return new Product(ids[index], nameAt(index), prices[index],
+                versionAt(index),
+                updatedAtMicros[index] == ABSENT ? null : Instant.EPOCH.plus(updatedAtMicros[index], ChronoUnit.MICROS));
+    }
+
+    /**
+     * Bytes held on the heap by the columns, excluding the object headers of this instance.
+     */
+    public long heapBytes() {
+        return 4 * ARRAY_HEADER_BYTES + (long) Long.BYTES * (ids.length + versions.length + updatedAtMicros.length)
+                + (long) Double.BYTES * prices.length + (long) Integer.BYTES * nameOffsets.length;
+    }
+
+    public long offHeapBytes() {
+        return names.capacity();
+    }
+
+    private String nameAt(int index) {
+        byte[] bytes = new byte[nameOffsets[index + 1] - nameOffsets[index]];
+        names.duplicate().position(nameOffsets[index]).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Collects rows in ascending id order into growable arrays, then trims them and moves the names off-heap.
+     */
+    public static final class Builder {
+        private int size;
+        private long[] ids;
+        private double[] prices;
+        private long[] versions;
+        private long[] updatedAtMicros;
+        private int[] nameOffsets;
+        private byte[] names;
+
+        private Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 16);
+            ids = new long[capacity];
+            prices = new double[capacity];
+            versions = new long[capacity];
+            updatedAtMicros = new long[capacity];
+            nameOffsets = new int[capacity + 1];
+            names = new byte[capacity * 16];
+        }
+
+        public Builder add(Product product) {
+            long id = product.getId();
+            if (size > 0 && id <= ids[size - 1]) {
+                throw new IllegalArgumentException("Catalog rows must be added in ascending id order, got " + id
+                        + " after " + ids[size - 1]);
+            }
+            if (size == ids.length) {
+                int capacity = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                versions = Arrays.copyOf(versions, capacity);
+                updatedAtMicros = Arrays.copyOf(updatedAtMicros, capacity);
+                nameOffsets = Arrays.copyOf(nameOffsets, capacity + 1);
+            }
+            byte[] name = product.getName().getBytes(StandardCharsets.UTF_8);
+            int nameStart = nameOffsets[size];
+            if (nameStart + name.length > names.length) {
+                names = Arrays.copyOf(names, Math.max(names.length * 2, nameStart + name.length));
+            }
+            System.arraycopy(name, 0, names, nameStart, name.length);
+
+            ids[size] = id;
+            prices[size] = product.getPrice();
+            versions[size] = product.getVersion() == null ? ABSENT : product.getVersion();
+            updatedAtMicros[size] = product.getUpdatedAt() == null ? ABSENT
+                    : ChronoUnit.MICROS.between(Instant.EPOCH, product.getUpdatedAt());
+            nameOffsets[size + 1] = nameStart + name.length;
+            size++;
+            return this;
+        }
+
+        public CatalogColumns build() {
+            ByteBuffer nameBuffer = ByteBuffer.allocateDirect(nameOffsets[size]);
+            nameBuffer.put(names, 0, nameOffsets[size]).flip();
+            return new CatalogColumns(size, Arrays.copyOf(ids, size), Arrays.copyOf(prices, size),
+                    Arrays.copyOf(versions, size), Arrays.copyOf(updatedAtMicros, size),
+                    Arrays.copyOf(nameOffsets, size + 1), nameBuffer.asReadOnlyBuffer());
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.accenture.zonetwo.business.snapshot;
+
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.business.repository.ProductRepository;
+import com.accenture.zonetwo.model.Product;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Read-only, columnar copy of the whole catalog that serves the list and by-id reads without the database.
+ * Writes are patched into a small sorted overlay on top of the immutable {@link CatalogColumns}; once the
+ * overlay holds {@code product.snapshot.compaction-threshold} changes, the two are merged into new columns.
+ * Disabled by default; when {@code product.snapshot.enabled} is set it is loaded once the application is
+ * ready and kept in sync through {@link ProductChangedEvent}s. Its size is published as the
+ * {@code product.snapshot.*} metrics.
+ */
+@Log4j2
+@Component
+public class CatalogSnapshot implements MeterBinder {
+    @Autowired
+    ProductRepository productRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private final boolean enabled;
+    private final int compactionThreshold;
+    private volatile State state = new State(CatalogColumns.builder(0).build(), new ConcurrentSkipListMap<>());
+    private volatile boolean ready;
+
+    public CatalogSnapshot(@Value("${product.snapshot.enabled:false}") boolean enabled,
+                           @Value("${product.snapshot.compaction-threshold:1024}") int compactionThreshold) {
+        this.enabled = enabled;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        CatalogColumns.Builder builder = CatalogColumns.builder((int) productRepository.count());
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Product> productStream = productRepository.streamAllProducts()) {
+                productStream.forEach(builder::add);
+            }
+        });
+        synchronized (this) {
+            // Changes committed while loading are already in the overlay and take precedence
+            state = new State(builder.build(), state.overlay);
+        }
+        ready = true;
+        log.info("Catalog snapshot loaded. Size is: {}, heap bytes: {}, off-heap bytes: {}",
+                state.columns.size(), state.columns.heapBytes(), state.columns.offHeapBytes());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Optional<Product> findById(Long id) {
+        State current = state;
+        Optional<Product> patched = current.overlay.get(id);
+        if (patched != null) {
+            return patched.map(CatalogSnapshot::copy);
+        }
+        int index = current.columns.indexOf(id);
+        return index < 0 ? Optional.empty() : Optional.of(current.columns.get(index));
+    }
+
+    /**
+     * @return every product, in id order
+     */
+    public List<Product> findAll() {
+        State current = state;
+        List<Product> products = new ArrayList<>(current.columns.size() + current.overlay.size());
+        merge(current, products::add);
+        return products;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Optional<Product> patch = event.getType() == ProductChangedEvent.Type.SAVED
+                ? Optional.of(copy(event.getProduct())) : Optional.empty();
+        synchronized (this) {
+            if (patch.isPresent() && isStale(event)) {
+                log.debug("Stale change of product {} is ignored: {}", event.getId(), event.getProduct());
+                return;
+            }
+            state.overlay.put(event.getId(), patch);
+            if (ready && state.overlay.size() >= compactionThreshold) {
+                compact();
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("product.snapshot.products", this, snapshot -> snapshot.state.columns.size())
+                .description("Products in the catalog snapshot columns")
+                .register(registry);
+        Gauge.builder("product.snapshot.overlay", this, snapshot -> snapshot.state.overlay.size())
+                .description("Changes patched over the catalog snapshot columns since the last compaction")
+                .register(registry);
+        Gauge.builder("product.snapshot.memory", this, snapshot -> snapshot.state.columns.heapBytes())
+                .tag("area", "heap")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("product.snapshot.memory", this, snapshot -> snapshot.state.columns.offHeapBytes())
+                .tag("area", "nonheap")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * A saved state is stale when the overlay already deleted the product or holds a version at least as
+     * high, or else the columns do. Called with the monitor held.
+     */
+    private boolean isStale(ProductChangedEvent event) {
+        Optional<Product> patched = state.overlay.get(event.getId());
+        if (patched != null) {
+            return patched.isEmpty() || !event.isNewerThan(patched.get().getVersion());
+        }
+        int index = state.columns.indexOf(event.getId());
+        return index >= 0 && !event.isNewerThan(state.columns.versionAt(index));
+    }
+
+    /**
+     * Merges the overlay into new columns. Called with the monitor held, so no write is lost in between.
+     */
+    private void compact() {
+        CatalogColumns.Builder builder = CatalogColumns.builder(state.columns.size() + state.overlay.size());
+        merge(state, builder::add);
+        state = new State(builder.build(), new ConcurrentSkipListMap<>());
+        log.debug("Catalog snapshot compacted. Size is: {}", state.columns::size);
+    }
+
+    /**
+     * Walks the columns and the overlay together in id order, letting the overlay win.
+     */
+    private static void merge(State current, Consumer<Product> consumer) {
+        Iterator<Map.Entry<Long, Optional<Product>>> patches = current.overlay.entrySet().iterator();
+        Map.Entry<Long, Optional<Product>> patch = patches.hasNext() ? patches.next() : null;
+        for (int i = 0; i < current.columns.size(); i++) {
+            long id = current.columns.idAt(i);
+            while (patch != null && patch.getKey() < id) {
+                patch.getValue().map(CatalogSnapshot::copy).ifPresent(consumer);
+                patch = patches.hasNext() ? patches.next() : null;
+            }
+            if (patch != null && patch.getKey() == id) {
+                patch.getValue().map(CatalogSnapshot::copy).ifPresent(consumer);
+                patch = patches.hasNext() ? patches.next() : null;
+            } else {
+                consumer.accept(current.columns.get(i));
+            }
+        }
+        while (patch != null) {
+            patch.getValue().map(CatalogSnapshot::copy).ifPresent(consumer);
+            patch = patches.hasNext() ? patches.next() : null;
+        }
+    }
+
+    private static Product copy(Product product) {
+        return new Product(product.getId(), product.getName(), product.getPrice(), product.getVersion(),
+                product.getUpdatedAt());
+    }
+
+    private static class State {
+        private final CatalogColumns columns;
+        /**
+         * Saved products by id, or empty for deleted ones; sorted so that it merges with the columns.
+         */
+        private final ConcurrentSkipListMap<Long, Optional<Product>> overlay;
+
+        State(CatalogColumns columns, ConcurrentSkipListMap<Long, Optional<Product>> overlay) {
+            this.columns = columns;
+            this.overlay = overlay;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.accenture.zonetwo.business.transfer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RFC 4180 fields: separated by commas, quoted with double quotes when they hold a comma, a quote or a
+ * line break, with quotes inside doubled.
+ */
+final class CatalogCsv {
+
+    private CatalogCsv() {
+    }
+
+    static String format(String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * @return whether the record is whole, i.e. does not end inside a quoted field that spans lines
+     */
+    static boolean isComplete(String record) {
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            if (record.charAt(i) == '"') {
+                quoted = !quoted;
+            }
+        }
+        return !quoted;
+    }
+
+    /**
+     * @throws IllegalArgumentException when a quoted field is followed by anything but a separator
+     */
+    static List<String> parse(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        while (true) {
+            if (i < record.length() && record.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    int quote = record.indexOf('"', i);
+                    if (quote < 0) {
+                        throw new IllegalArgumentException("unterminated quoted field");
+                    }
+                    field.append(record, i, quote);
+                    i = quote + 1;
+                    if (i < record.length() && record.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (i < record.length() && record.charAt(i) != ',') {
+                    throw new IllegalArgumentException("unexpected character after quoted field");
+                }
+            } else {
+                int comma = record.indexOf(',', i);
+                int end = comma < 0 ? record.length() : comma;
+                field.append(record, i, end);
+                i = end;
+            }
+            fields.add(field.toString());
+            field.setLength(0);
+            if (i >= record.length()) {
+                return fields;
+            }
+            i++;
+        }
+    }
+}
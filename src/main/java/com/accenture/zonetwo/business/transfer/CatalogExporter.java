@@ -0,0 +1,72 @@
+package com.accenture.zonetwo.business.transfer;
+
+import com.accenture.zonetwo.business.service.ProductService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the whole catalog as it is streamed from the database, one product per line, so memory does not
+ * grow with the catalog. The output can be imported again by {@link CatalogImporter}.
+ */
+@Log4j2
+@Component
+public class CatalogExporter {
+    static final String CSV_HEADER = "id,name,price";
+
+    @Autowired
+    ProductService productService;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    /**
+     * @return the number of products written
+     */
+    public long exportTo(OutputStream outputStream, CatalogFormat format) throws IOException {
+        AtomicLong count = new AtomicLong();
+        try {
+            if (format == CatalogFormat.CSV) {
+                Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+                writer.write(CSV_HEADER + "\r\n");
+                productService.streamAllProducts(product -> {
+                    try {
+                        writer.write(product.getId() + "," + CatalogCsv.format(product.getName()) + ","
+                                + product.getPrice() + "\r\n");
+                        count.incrementAndGet();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writer.flush();
+            } else {
+                try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                    generator.setRootValueSeparator(null);
+                    productService.streamAllProducts(product -> {
+                        try {
+                            generator.writeObject(product);
+                            generator.writeRaw('\n');
+                            count.incrementAndGet();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        log.debug("Catalog exported as {}. Size is: {}", format, count);
+        return count.get();
+    }
+}
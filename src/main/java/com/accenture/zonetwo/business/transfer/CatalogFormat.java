@@ -0,0 +1,52 @@
+package com.accenture.zonetwo.business.transfer;
+
+import org.springframework.http.MediaType;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Formats the catalog is imported from and exported to, one product per line (or per CSV record).
+ */
+public enum CatalogFormat {
+    /**
+     * RFC 4180 with a header naming the columns; {@code name} and {@code price} are required, others are ignored.
+     */
+    CSV(new MediaType("text", "csv")),
+    NDJSON(MediaType.APPLICATION_NDJSON);
+
+    public static final String CSV_VALUE = "text/csv";
+
+    private final MediaType mediaType;
+
+    CatalogFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public static CatalogFormat of(MediaType mediaType) {
+        for (CatalogFormat format : values()) {
+            if (format.mediaType.isCompatibleWith(mediaType)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("No catalog format for " + mediaType);
+    }
+
+    /**
+     * @return the format named by the file extension: {@code .csv}, {@code .ndjson} or {@code .jsonl}
+     */
+    public static CatalogFormat of(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("No catalog format for " + file);
+    }
+}
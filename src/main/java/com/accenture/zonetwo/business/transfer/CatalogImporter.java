@@ -0,0 +1,289 @@
+package com.accenture.zonetwo.business.transfer;
+
+import com.accenture.zonetwo.business.service.ProductService;
+import com.accenture.zonetwo.model.CatalogImportReport;
+import com.accenture.zonetwo.model.Product;
+import com.accenture.zonetwo.model.ProductBatchResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Imports a catalog through a two-stage pipeline. A parser thread turns lines into chunks of
+ * {@code product.batch.chunk-size} records and hands them over through a queue of
+ * {@code product.transfer.queue-capacity} chunks, blocking while it is full. The calling thread saves
+ * each chunk through {@link ProductService#saveProducts}, which validates the records and rejects
+ * duplicates of stored products and of each other. Memory stays bounded by the queue whatever the
+ * size of the input. Ids in the input are ignored; every imported product gets a new one.
+ */
+@Log4j2
+@Component
+public class CatalogImporter {
+    private static final List<Row> END = new ArrayList<>();
+    /**
+     * Longest CSV record accepted, so an unbalanced quote cannot pull the rest of the input into one record.
+     */
+    private static final int MAX_RECORD_CHARS = 64 * 1024;
+
+    @Autowired
+    ProductService productService;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Value("${product.batch.chunk-size:500}")
+    int chunkSize;
+    @Value("${product.transfer.queue-capacity:4}")
+    int queueCapacity;
+
+    /**
+     * @param progress called with the running totals after each saved chunk
+     * @throws IllegalArgumentException when the CSV header lacks the name or price column
+     */
+    public CatalogImportReport importFrom(LineReader lines, CatalogFormat format,
+                                          Consumer<CatalogImportReport> progress) throws IOException {
+        BlockingQueue<List<Row>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        Parser parser = new Parser(lines, format, queue);
+        Thread parserThread = new Thread(parser, "catalog-import-parser");
+        parserThread.start();
+        CatalogImportReport report = new CatalogImportReport();
+        try {
+            for (List<Row> chunk = take(queue); chunk != END; chunk = take(queue)) {
+                save(chunk, report);
+                progress.accept(report);
+            }
+        } finally {
+            // Unblocks the parser when saving failed
+            parserThread.interrupt();
+        }
+        if (parser.failure instanceof IOException) {
+            throw (IOException) parser.failure;
+        }
+        if (parser.failure != null) {
+            throw (RuntimeException) parser.failure;
+        }
+        log.info("Catalog import finished: {}", report);
+        return report;
+    }
+
+    private void save(List<Row> chunk, CatalogImportReport report) {
+        List<Row> parsed = new ArrayList<>(chunk.size());
+        List<Product> products = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (row.error != null) {
+                report.setInvalid(report.getInvalid() + 1);
+                report.addError(row.line, row.error);
+            } else {
+                parsed.add(row);
+                products.add(row.product);
+            }
+        }
+        report.setRecords(report.getRecords() + chunk.size());
+        if (products.isEmpty()) {
+            return;
+        }
+        List<ProductBatchResult> results = productService.saveProducts(products);
+        for (ProductBatchResult result : results) {
+            switch (result.getStatus()) {
+                case CREATED:
+                    report.setCreated(report.getCreated() + 1);
+                    break;
+                case CONFLICT:
+                    report.setConflicts(report.getConflicts() + 1);
+                    break;
+                default:
+                    report.setInvalid(report.getInvalid() + 1);
+                    report.addError(parsed.get(result.getIndex()).line, "name and price are required");
+            }
+        }
+    }
+
+    private static List<Row> take(BlockingQueue<List<Row>> queue) throws InterruptedIOException {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Catalog import was interrupted");
+        }
+    }
+
+    private class Parser implements Runnable {
+        private final LineReader lines;
+        private final CatalogFormat format;
+        private final BlockingQueue<List<Row>> queue;
+        private volatile Exception failure;
+        private long lineNumber;
+        private long recordLine;
+        private int nameColumn = -1;
+        private int priceColumn = -1;
+
+        Parser(LineReader lines, CatalogFormat format, BlockingQueue<List<Row>> queue) {
+            this.lines = lines;
+            this.format = format;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (format == CatalogFormat.CSV) {
+                    readHeader();
+                }
+                List<Row> chunk = new ArrayList<>(chunkSize);
+                while (true) {
+                    Row row;
+                    try {
+                        String record = nextRecord();
+                        if (record == null) {
+                            break;
+                        }
+                        if (record.isBlank()) {
+                            continue;
+                        }
+                        row = parse(record);
+                    } catch (LineTooLongException e) {
+                        row = new Row(recordLine, null, e.getMessage());
+                    }
+                    chunk.add(row);
+                    if (chunk.size() == chunkSize) {
+                        queue.put(chunk);
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    queue.put(chunk);
+                }
+            } catch (InterruptedException e) {
+                // The importer stopped taking
+                return;
+            } catch (UncheckedIOException e) {
+                failure = e.getCause();
+            } catch (IOException | RuntimeException e) {
+                failure = e;
+            }
+            try {
+                queue.put(END);
+            } catch (InterruptedException e) {
+                // The importer stopped taking
+            }
+        }
+
+        private void readHeader() throws IOException {
+            String header;
+            try {
+                header = nextRecord();
+            } catch (LineTooLongException e) {
+                throw new IllegalArgumentException("CSV header " + e.getMessage());
+            }
+            if (header == null) {
+                return;
+            }
+            List<String> columns = CatalogCsv.parse(header.startsWith("\uFEFF") ? header.substring(1) : header);
+            for (int i = 0; i < columns.size(); i++) {
+                String column = columns.get(i).trim().toLowerCase(Locale.ROOT);
+                if (column.equals("name")) {
+                    nameColumn = i;
+                } else if (column.equals("price")) {
+                    priceColumn = i;
+                }
+            }
+            if (nameColumn < 0 || priceColumn < 0) {
+                throw new IllegalArgumentException("CSV header must name the name and price columns, got: " + header);
+            }
+        }
+
+        /**
+         * @return the next line, joined with the following ones while a CSV quoted field spans them
+         * @throws LineTooLongException when one of its lines is; reading goes on after that line
+         */
+        private String nextRecord() throws IOException {
+            recordLine = lineNumber + 1;
+            String record = readLine();
+            if (record == null) {
+                return null;
+            }
+            if (format == CatalogFormat.CSV) {
+                while (!CatalogCsv.isComplete(record) && record.length() < MAX_RECORD_CHARS) {
+                    String next = readLine();
+                    if (next == null) {
+                        break;
+                    }
+                    record = record + "\n" + next;
+                }
+            }
+            return record;
+        }
+
+        private String readLine() throws IOException {
+            try {
+                String line = lines.readLine();
+                if (line != null) {
+                    lineNumber++;
+                }
+                return line;
+            } catch (LineTooLongException e) {
+                lineNumber++;
+                throw e;
+            }
+        }
+
+        private Row parse(String record) {
+            try {
+                Product product = format == CatalogFormat.CSV ? parseCsv(record) : parseNdjson(record);
+                if (product == null) {
+                    throw new IllegalArgumentException("not a product");
+                }
+                product.setId(null);
+                return new Row(recordLine, product, null);
+            } catch (IllegalArgumentException | JsonProcessingException e) {
+                return new Row(recordLine, null, e.getMessage());
+            }
+        }
+
+        private Product parseCsv(String record) {
+            List<String> fields = CatalogCsv.parse(record);
+            if (fields.size() <= Math.max(nameColumn, priceColumn)) {
+                throw new IllegalArgumentException("expected at least " + (Math.max(nameColumn, priceColumn) + 1)
+                        + " fields, got " + fields.size());
+            }
+            Product product = new Product();
+            product.setName(fields.get(nameColumn));
+            String price = fields.get(priceColumn).trim();
+            if (!price.isEmpty()) {
+                try {
+                    product.setPrice(Double.valueOf(price));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("price is not a number: " + price);
+                }
+            }
+            return product;
+        }
+
+        private Product parseNdjson(String record) throws JsonProcessingException {
+            return objectMapper.readValue(record, Product.class);
+        }
+    }
+
+    private static class Row {
+        private final long line;
+        private final Product product;
+        private final String error;
+
+        Row(long line, Product product, String error) {
+            this.line = line;
+            this.product = product;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.accenture.zonetwo.business.transfer;
+
+import com.accenture.zonetwo.model.CatalogImportReport;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command-line mode: imports the file named by {@code product.transfer.import}, or exports the catalog to
+ * the one named by {@code product.transfer.export}, then exits. The format follows the file extension.
+ * <pre>
+ * java -jar zonetwo.jar --spring.main.web-application-type=none --product.transfer.import=catalog.csv
+ * </pre>
+ */
+@Log4j2
+@Component
+@ConditionalOnExpression("'${product.transfer.import:}' != '' or '${product.transfer.export:}' != ''")
+public class CatalogTransferRunner implements ApplicationRunner {
+    private static final int OUTPUT_BUFFER_BYTES = 1 << 16;
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    @Autowired
+    CatalogImporter catalogImporter;
+    @Autowired
+    CatalogExporter catalogExporter;
+    @Autowired
+    ConfigurableApplicationContext applicationContext;
+    @Value("${product.transfer.import:}")
+    String importFile;
+    @Value("${product.transfer.export:}")
+    String exportFile;
+    @Value("${product.transfer.exit:true}")
+    boolean exit;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!importFile.isEmpty()) {
+            importCatalog(Path.of(importFile));
+        }
+        if (!exportFile.isEmpty()) {
+            exportCatalog(Path.of(exportFile));
+        }
+        if (exit) {
+            System.exit(SpringApplication.exit(applicationContext));
+        }
+    }
+
+    private void importCatalog(Path file) throws Exception {
+        log.info("Importing catalog from {}", file);
+        try (MappedFileLineReader lines = new MappedFileLineReader(file)) {
+            long[] lastReport = {System.nanoTime()};
+            CatalogImportReport report = catalogImporter.importFrom(lines, CatalogFormat.of(file), progress -> {
+                long now = System.nanoTime();
+                if (now - lastReport[0] >= PROGRESS_INTERVAL_NANOS) {
+                    lastReport[0] = now;
+                    log.info("Imported {} records ({}% of {} bytes), {} created",
+                            progress.getRecords(), 100 * lines.position() / Math.max(lines.size(), 1), lines.size(),
+                            progress.getCreated());
+                }
+            });
+            log.info("Imported {} records from {}: {} created, {} conflicts, {} invalid", report.getRecords(), file,
+                    report.getCreated(), report.getConflicts(), report.getInvalid());
+            report.getErrors().forEach(error -> log.warn("Rejected {}", error));
+        }
+    }
+
+    private void exportCatalog(Path file) throws Exception {
+        log.info("Exporting catalog to {}", file);
+        try (OutputStream outputStream = new BufferedOutputStream(Channels.newOutputStream(FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)),
+                OUTPUT_BUFFER_BYTES)) {
+            long count = catalogExporter.exportTo(outputStream, CatalogFormat.of(file));
+            log.info("Exported {} products to {}", count, file);
+        }
+    }
+}
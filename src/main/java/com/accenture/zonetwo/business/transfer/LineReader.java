@@ -0,0 +1,82 @@
+package com.accenture.zonetwo.business.transfer;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Source of the lines of an import, without their line terminators.
+ */
+public interface LineReader extends Closeable {
+    /**
+     * Longest line returned, in characters (in bytes for {@link MappedFileLineReader}), so a single line
+     * cannot take up memory in proportion to the input.
+     */
+    int MAX_LINE_LENGTH = 64 * 1024;
+
+    /**
+     * @return the next line, or null at the end of the input
+     * @throws LineTooLongException in place of a line over {@link #MAX_LINE_LENGTH}; the next call goes on after it
+     */
+    String readLine() throws IOException;
+
+    /**
+     * Lines end at a line feed, a carriage return or both, as with {@link BufferedReader#readLine}.
+     */
+    static LineReader of(BufferedReader reader) {
+        return new LineReader() {
+            private final char[] buffer = new char[8192];
+            private final StringBuilder line = new StringBuilder();
+            private int position;
+            private int limit;
+            private boolean skipLineFeed;
+
+            @Override
+            public String readLine() throws IOException {
+                line.setLength(0);
+                boolean read = false;
+                boolean tooLong = false;
+                while (true) {
+                    if (position == limit) {
+                        limit = Math.max(0, reader.read(buffer, 0, buffer.length));
+                        position = 0;
+                        if (limit == 0) {
+                            break;
+                        }
+                    }
+                    if (skipLineFeed) {
+                        skipLineFeed = false;
+                        if (buffer[position] == '\n') {
+                            position++;
+                            continue;
+                        }
+                    }
+                    read = true;
+                    int start = position;
+                    while (position < limit && buffer[position] != '\n' && buffer[position] != '\r') {
+                        position++;
+                    }
+                    // Past the limit, the rest of the line is only scanned for its end
+                    tooLong |= line.length() + position - start > MAX_LINE_LENGTH;
+                    if (!tooLong) {
+                        line.append(buffer, start, position - start);
+                    }
+                    if (position < limit) {
+                        skipLineFeed = buffer[position] == '\r';
+                        position++;
+                        break;
+                    }
+                }
+                if (tooLong) {
+                    throw new LineTooLongException();
+                }
+                return read ? line.toString() : null;
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+}
@@ -0,0 +1,14 @@
+package com.accenture.zonetwo.business.transfer;
+
+import java.io.IOException;
+
+/**
+ * Thrown by a {@link LineReader} in place of a line longer than {@link LineReader#MAX_LINE_LENGTH}. The rest
+ * of the line has been skipped by then, so reading can go on with the next one.
+ */
+public class LineTooLongException extends IOException {
+
+    public LineTooLongException() {
+        super("line is longer than " + LineReader.MAX_LINE_LENGTH + " characters");
+    }
+}
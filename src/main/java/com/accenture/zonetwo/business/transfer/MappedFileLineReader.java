@@ -0,0 +1,114 @@
+package com.accenture.zonetwo.business.transfer;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads the UTF-8 lines of a local file through a memory-mapped window that slides over it, so the file
+ * is paged in by the OS without copying it through a stream buffer, and files of any size are read in
+ * constant heap. A line crossing the end of a window is carried over into the next one, up to
+ * {@link LineReader#MAX_LINE_LENGTH} bytes.
+ */
+public class MappedFileLineReader implements LineReader {
+    static final long DEFAULT_WINDOW_BYTES = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long windowBytes;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private boolean lineTooLong;
+    private volatile long position;
+
+    public MappedFileLineReader(Path file) throws IOException {
+        this(file, DEFAULT_WINDOW_BYTES);
+    }
+
+    MappedFileLineReader(Path file, long windowBytes) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowBytes = windowBytes;
+    }
+
+    @Override
+    public String readLine() throws IOException {
+        lineLength = 0;
+        lineTooLong = false;
+        boolean read = false;
+        while (true) {
+            if (window == null || !window.hasRemaining()) {
+                long next = window == null ? 0 : windowStart + window.limit();
+                if (next >= size) {
+                    position = size;
+                    return read ? endLine() : null;
+                }
+                windowStart = next;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, next, Math.min(windowBytes, size - next));
+            }
+            read = true;
+            int start = window.position();
+            int end = start;
+            int limit = window.limit();
+            while (end < limit && window.get(end) != '\n') {
+                end++;
+            }
+            append(end - start);
+            if (end < limit) {
+                window.position(end + 1);
+                position = windowStart + end + 1;
+                return endLine();
+            }
+        }
+    }
+
+    /**
+     * @return bytes of the file consumed so far; safe to call from another thread for progress reports
+     */
+    public long position() {
+        return position;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Copies the next bytes of the window onto the current line, or skips them once it is too long.
+     */
+    private void append(int length) {
+        if (lineTooLong || lineLength + length > MAX_LINE_LENGTH) {
+            lineTooLong = true;
+            window.position(window.position() + length);
+            return;
+        }
+        if (lineLength + length > line.length) {
+            line = Arrays.copyOf(line, Math.min(MAX_LINE_LENGTH, Math.max(line.length * 2, lineLength + length)));
+        }
+        window.get(line, lineLength, length);
+        lineLength += length;
+    }
+
+    private String endLine() throws LineTooLongException {
+        if (lineTooLong) {
+            throw new LineTooLongException();
+        }
+        return decodeLine();
+    }
+
+    private String decodeLine() {
+        int length = lineLength > 0 && line[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+}
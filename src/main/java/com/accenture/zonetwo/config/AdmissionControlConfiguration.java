@@ -0,0 +1,56 @@
+package com.accenture.zonetwo.config;
+
+import com.accenture.zonetwo.web.filter.AdmissionControlFilter;
+import com.accenture.zonetwo.web.limit.GradientConcurrencyLimiter;
+import com.accenture.zonetwo.web.limit.TokenBucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Rate limits and adaptive concurrency limit in front of the product API, see {@link AdmissionControlFilter}.
+ * A rate of 0 turns the corresponding token bucket off. Clients are told apart by remote address unless a
+ * client header is set, which it must be behind a proxy: every client would otherwise share the proxy's bucket.
+ * Writes leave {@code global-read-reserve} of the global burst to reads.
+ */
+@Configuration
+@ConditionalOnProperty(name = "product.admission.enabled", havingValue = "true")
+public class AdmissionControlConfiguration {
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+            MeterRegistry meterRegistry,
+            @Value("${product.admission.client-rate:100}") double clientRate,
+            @Value("${product.admission.client-burst:200}") double clientBurst,
+            @Value("${product.admission.client-header:}") String clientHeader,
+            @Value("${product.admission.trusted-proxies:}") String trustedProxies,
+            @Value("${product.admission.global-rate:2000}") double globalRate,
+            @Value("${product.admission.global-burst:4000}") double globalBurst,
+            @Value("${product.admission.global-read-reserve:0.25}") double globalReadReserve,
+            @Value("${product.admission.initial-limit:20}") int initialLimit,
+            @Value("${product.admission.min-limit:4}") int minLimit,
+            @Value("${product.admission.max-limit:200}") int maxLimit,
+            @Value("${product.admission.write-share:0.5}") double writeShare,
+            @Value("${product.admission.retry-after:1s}") Duration retryAfter) {
+        AdmissionControlFilter filter = new AdmissionControlFilter(meterRegistry,
+                new GradientConcurrencyLimiter(initialLimit, minLimit, maxLimit, writeShare),
+                globalRate > 0 ? new TokenBucket(globalRate, globalBurst) : null,
+                // Never the whole burst, or no write would ever pass
+                Math.min(globalBurst * globalReadReserve, globalBurst - 1),
+                clientRate > 0 ? () -> new TokenBucket(clientRate, clientBurst) : null,
+                clientHeader, Set.of(StringUtils.tokenizeToStringArray(trustedProxies, ",")), retryAfter);
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/product/*", "/product");
+        // After the request metrics filter, so shed requests still show up in http.server.requests
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
@@ -0,0 +1,42 @@
+package com.accenture.zonetwo.config;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * Refuses to start on a catalog schema the entities do not match, instead of failing on the first write.
+ * With Flyway managing the schema nothing else inspects it, and a database baselined at a version it
+ * does not have would otherwise go unnoticed. Reads no rows, so it costs one round trip per table.
+ */
+@Log4j2
+@Component
+@DependsOn("flywayInitializer")
+@ConditionalOnProperty(name = "spring.flyway.enabled", havingValue = "true")
+public class CatalogSchemaCheck {
+    static final List<String> QUERIES = List.of(
+            "select id, name, price, version, updated_at from product where 1 = 0",
+            "select id, type, product_id, name, price, changed_at from product_change where 1 = 0");
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void check() {
+        for (String query : QUERIES) {
+            try {
+                jdbcTemplate.queryForList(query);
+            } catch (DataAccessException e) {
+                throw new IllegalStateException("Catalog schema does not match the migrations, failed: " + query, e);
+            }
+        }
+        log.debug("Catalog schema checked");
+    }
+}
@@ -0,0 +1,138 @@
+package com.accenture.zonetwo.config;
+
+import com.accenture.zonetwo.business.repository.model.ProductDAO;
+import lombok.extern.log4j.Log4j2;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Migration V1.1: brings a catalog that ddl-auto created before the versioned migrations up to V1.
+ * The fast-start profile baselines such databases at V1, but depending on the release they were last
+ * updated by, they may lack the version and updated_at columns, the name and price index or the
+ * product_change table. Each is added only when missing, so on databases V1 created this does nothing.
+ * Runs before V2, which takes care of product_seq on MySQL.
+ */
+@Log4j2
+@Component
+public class DdlAutoSchemaUpgrade implements JavaMigration {
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("1.1");
+    }
+
+    @Override
+    public String getDescription() {
+        return "upgrade ddl auto schema";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean isUndo() {
+        return false;
+    }
+
+    @Override
+    public boolean isBaselineMigration() {
+        return false;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        boolean mysql = "MySQL".equals(connection.getMetaData().getDatabaseProductName());
+        try (Statement statement = connection.createStatement()) {
+            if (!hasColumn(connection, "product", "version")) {
+                execute(statement, "alter table product add column version bigint default 0 not null");
+            }
+            if (!hasColumn(connection, "product", "updated_at")) {
+                execute(statement, "alter table product add column updated_at " + (mysql ? "datetime(6)" : "timestamp(6)"));
+            }
+            if (!hasIndex(connection, "product", "idx_product_name_price")) {
+                execute(statement, "create index idx_product_name_price on product (name, price)");
+            }
+            if (!hasTable(connection, "product_change")) {
+                execute(statement, "create table product_change ("
+                        + (mysql ? "id bigint not null auto_increment," : "id bigint generated by default as identity,")
+                        + " type varchar(16) not null, product_id bigint not null, name varchar(255),"
+                        + " price double precision, changed_at " + (mysql ? "datetime(6)" : "timestamp(6)") + ","
+                        + " primary key (id))" + (mysql ? " engine=InnoDB" : ""));
+                execute(statement, "create index idx_product_change_changed_at on product_change (changed_at)");
+            }
+            if (!mysql && !hasSequence(connection, "product_seq")) {
+                // Pooled ids: the sequence holds the end of the next block, see ProductDAO.ID_ALLOCATION_SIZE
+                long start;
+                try (ResultSet maxId = statement.executeQuery("select coalesce(max(id), 0) from product")) {
+                    maxId.next();
+                    start = maxId.getLong(1) + ProductDAO.ID_ALLOCATION_SIZE;
+                }
+                execute(statement, "create sequence product_seq start with " + start
+                        + " increment by " + ProductDAO.ID_ALLOCATION_SIZE);
+            }
+        }
+    }
+
+    private static void execute(Statement statement, String sql) throws SQLException {
+        log.warn("Upgrading catalog schema created by ddl-auto: {}", sql);
+        statement.execute(sql);
+    }
+
+    private static boolean hasTable(Connection connection, String table) throws SQLException {
+        try (ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), connection.getSchema(),
+                identifier(connection, table), new String[]{"TABLE"})) {
+            return tables.next();
+        }
+    }
+
+    private static boolean hasColumn(Connection connection, String table, String column) throws SQLException {
+        try (ResultSet columns = connection.getMetaData().getColumns(connection.getCatalog(), connection.getSchema(),
+                identifier(connection, table), identifier(connection, column))) {
+            return columns.next();
+        }
+    }
+
+    private static boolean hasIndex(Connection connection, String table, String index) throws SQLException {
+        try (ResultSet indexes = connection.getMetaData().getIndexInfo(connection.getCatalog(), connection.getSchema(),
+                identifier(connection, table), false, true)) {
+            while (indexes.next()) {
+                if (index.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static boolean hasSequence(Connection connection, String sequence) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "select 1 from information_schema.sequences where sequence_name = ?")) {
+            statement.setString(1, identifier(connection, sequence));
+            try (ResultSet sequences = statement.executeQuery()) {
+                return sequences.next();
+            }
+        }
+    }
+
+    private static String identifier(Connection connection, String name) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        return metaData.storesUpperCaseIdentifiers() ? name.toUpperCase() : name;
+    }
+}
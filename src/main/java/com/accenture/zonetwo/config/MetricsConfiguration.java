@@ -0,0 +1,19 @@
+package com.accenture.zonetwo.config;
+
+import com.accenture.zonetwo.web.filter.ResponseSizeMetricsFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public FilterRegistrationBean<ResponseSizeMetricsFilter> responseSizeMetricsFilter(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<ResponseSizeMetricsFilter> registration =
+                new FilterRegistrationBean<>(new ResponseSizeMetricsFilter(meterRegistry));
+        registration.addUrlPatterns("/product/*", "/product");
+        return registration;
+    }
+}
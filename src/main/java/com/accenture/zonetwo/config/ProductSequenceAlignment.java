@@ -0,0 +1,56 @@
+package com.accenture.zonetwo.config;
+
+import com.accenture.zonetwo.business.repository.model.ProductDAO;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.sql.ResultSet;
+
+/**
+ * Moves product_seq past the ids already in use when the schema is managed by ddl-auto=update.
+ * Databases created while ids were auto-increment get the table MySQL emulates the sequence with
+ * starting at 1, so new products would collide with existing ones. Flyway does the same in V2, so this
+ * only runs while Flyway is disabled. Raising the sequence is idempotent and never moves it back, so
+ * nodes starting together do not interfere.
+ */
+@Log4j2
+@Component
+@DependsOn("entityManagerFactory")
+@ConditionalOnProperty(name = "spring.flyway.enabled", havingValue = "false")
+public class ProductSequenceAlignment {
+    static final String SEQUENCE_TABLE = "product_seq";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    /**
+     * Runs once the schema has been updated, before any product can be created.
+     */
+    @PostConstruct
+    public void align() {
+        if (!hasSequenceTable()) {
+            // A native sequence, only ever created together with the table it numbers
+            return;
+        }
+        int updated = jdbcTemplate.update("update " + SEQUENCE_TABLE + " set next_val = (select max(id) + ? from product)"
+                + " where next_val < (select max(id) + ? from product)", ProductDAO.ID_ALLOCATION_SIZE, ProductDAO.ID_ALLOCATION_SIZE);
+        if (updated > 0) {
+            log.warn("Moved {} past the product ids already in use", SEQUENCE_TABLE);
+        }
+    }
+
+    private boolean hasSequenceTable() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), null, SEQUENCE_TABLE,
+                    new String[]{"TABLE"})) {
+                return tables.next();
+            }
+        }));
+    }
+}
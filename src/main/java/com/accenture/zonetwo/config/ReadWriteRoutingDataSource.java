@@ -0,0 +1,92 @@
+package com.accenture.zonetwo.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out connections of the replicas, round robin, to read-only transactions and connections of the
+ * primary to everything else. The transaction is only marked read-only after it has begun, so this must
+ * sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} that fetches the
+ * connection at the first statement.
+ * For {@code lagTolerance} after a read-write transaction commits, read-only ones of the same thread stay on
+ * the primary too, so a caller reads its own writes rather than a lagging replica. Other callers keep using
+ * the replicas, however often the catalog is written; reads that fill shared caches after a change take
+ * the primary themselves, see {@code ProductCache#isRecentlyInvalidated}.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    static final String PRIMARY = "primary";
+
+    private final List<DataSource> replicas;
+    private final long lagToleranceNanos;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    /**
+     * When the thread last committed a read-write transaction.
+     */
+    private final ThreadLocal<Long> lastWriteNanos;
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration lagTolerance) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is required");
+        }
+        this.replicas = List.copyOf(replicas);
+        this.lagToleranceNanos = lagTolerance.toNanos();
+        long longAgo = System.nanoTime() - lagToleranceNanos;
+        this.lastWriteNanos = ThreadLocal.withInitial(() -> longAgo);
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(replicaKey(i), replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        lastWriteNanos.set(System.nanoTime());
+                    }
+                });
+            }
+            return PRIMARY;
+        }
+        if (System.nanoTime() - lastWriteNanos.get() < lagToleranceNanos) {
+            return PRIMARY;
+        }
+        return replicaKey(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+    }
+
+    public List<DataSource> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Closes the replica pools; the primary is a bean of its own and closed with the context.
+     */
+    @Override
+    public void close() throws IOException {
+        for (DataSource replica : replicas) {
+            if (replica instanceof Closeable) {
+                ((Closeable) replica).close();
+            }
+        }
+    }
+
+    static String replicaKey(int index) {
+        return "replica-" + index;
+    }
+}
@@ -0,0 +1,88 @@
+package com.accenture.zonetwo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes read-only transactions to replica pools when {@code product.datasource.replicas[0].jdbc-url} is set.
+ * The primary stays on the standard {@code spring.datasource.*} and {@code spring.datasource.hikari.*}
+ * properties. Each replica takes any Hikari property under {@code product.datasource.replicas[n].*}, with
+ * the primary's credentials and driver as defaults, and is published in the {@code hikaricp.*} metrics
+ * as pool {@code replica-n}.
+ */
+@Log4j2
+@Configuration
+@ConditionalOnProperty(name = "product.datasource.replicas[0].jdbc-url")
+public class ReplicaRoutingConfiguration {
+    private static final String REPLICAS_PREFIX = "product.datasource.replicas";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(ReadWriteRoutingDataSource.PRIMARY);
+        return dataSource;
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(HikariDataSource primaryDataSource, DataSourceProperties properties,
+                                                        Environment environment,
+                                                        @Value("${product.datasource.replica-lag-tolerance:2s}") Duration lagTolerance) {
+        Binder binder = Binder.get(environment);
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; binder.bind(REPLICAS_PREFIX + "[" + i + "].jdbc-url", String.class).isBound(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName(ReadWriteRoutingDataSource.replicaKey(i));
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setUsername(properties.determineUsername());
+            replica.setPassword(properties.determinePassword());
+            replica.setReadOnly(true);
+            binder.bind(REPLICAS_PREFIX + "[" + i + "]", Bindable.ofInstance(replica));
+            replicas.add(replica);
+        }
+        log.info("Read-only transactions are routed to {} replicas", replicas.size());
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas, lagTolerance);
+    }
+
+    /**
+     * Replica pools are not beans, so Boot does not instrument them like the primary. Bound before the
+     * first read-only transaction starts them, as the tracker can only be set on a pool that has not started.
+     */
+    @Bean
+    public MeterBinder replicaPoolMetrics(ReadWriteRoutingDataSource routingDataSource) {
+        return registry -> routingDataSource.getReplicas().forEach(replica -> {
+            HikariDataSource pool = (HikariDataSource) replica;
+            if (pool.getMetricRegistry() == null && pool.getMetricsTrackerFactory() == null) {
+                try {
+                    pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+                } catch (IllegalStateException e) {
+                    log.warn("Pool {} started before metrics were bound: {}", pool.getPoolName(), e.getMessage());
+                }
+            }
+        });
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -0,0 +1,55 @@
+package com.accenture.zonetwo.config;
+
+import com.accenture.zonetwo.business.index.ProductPriceIndex;
+import com.accenture.zonetwo.business.invalidation.OutboxInvalidationBus;
+import com.accenture.zonetwo.business.invalidation.ProductInvalidationRelay;
+import com.accenture.zonetwo.business.outbox.ProductChangeOutbox;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Startup support for the fast-start profile and its class-data-sharing archive.
+ */
+@Log4j2
+@Configuration
+public class StartupConfiguration {
+
+    /**
+     * Keeps beans with scheduled methods eager under lazy initialization, as their schedules are only
+     * registered when the bean is created.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter scheduledBeansExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(ProductChangeOutbox.class, ProductPriceIndex.class,
+                OutboxInvalidationBus.class, ProductInvalidationRelay.class);
+    }
+
+    /**
+     * Checks the schema at startup rather than never, as nothing depends on the check.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter schemaCheckExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(CatalogSchemaCheck.class);
+    }
+
+    /**
+     * Stops the application once it is ready, so the {@code cdsArchive} build task can record the classes
+     * a start loads.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "product.startup.exit-when-ready", havingValue = "true")
+    public ApplicationListener<ApplicationReadyEvent> exitWhenReady() {
+        return event -> {
+            log.info("Ready after {} ms since JVM start, exiting", ManagementFactory.getRuntimeMXBean().getUptime());
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        };
+    }
+}
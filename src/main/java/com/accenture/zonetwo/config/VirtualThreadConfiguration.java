@@ -0,0 +1,67 @@
+package com.accenture.zonetwo.config;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs Tomcat request handling and MVC async work (the streaming endpoints) on virtual threads
+ * when {@code product.execution-mode=virtual}. Virtual threads need a JDK 21+ runtime; the build
+ * still targets Java 11, so the executor is looked up reflectively and the default platform thread
+ * pool is kept when it is not available.
+ */
+@Log4j2
+@Configuration
+@ConditionalOnProperty(name = "product.execution-mode", havingValue = "virtual")
+public class VirtualThreadConfiguration implements WebMvcConfigurer {
+
+    private final ExecutorService executor = newVirtualThreadPerTaskExecutor();
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            if (executor != null) {
+                protocolHandler.setExecutor(executor);
+            }
+        };
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        if (executor != null) {
+            configurer.setTaskExecutor(new TaskExecutorAdapter(executor));
+        }
+    }
+
+    /**
+     * Runs once Tomcat has stopped taking requests; async work already handed over still completes.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            log.info("Product requests run on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads need Java 21 or newer, running on {}. Using platform threads",
+                    System.getProperty("java.version"));
+            return null;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.accenture.zonetwo.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class CatalogImportReport {
+    public static final int MAX_ERRORS = 100;
+
+    /**
+     * Records read, including the ones that were rejected.
+     */
+    private long records;
+    private long created;
+    /**
+     * Records matching a stored product or an earlier record of the same batch.
+     */
+    private long conflicts;
+    private long invalid;
+    /**
+     * Why records were invalid, by line, up to the first {@code MAX_ERRORS}.
+     */
+    private List<String> errors = new ArrayList<>();
+
+    public void addError(long line, String error) {
+        if (errors.size() < MAX_ERRORS) {
+            errors.add("line " + line + ": " + error);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.accenture.zonetwo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceHistogram {
+
+    private List<Bucket> buckets;
+
+    /**
+     * @param counts one more than the bounds: below the first bound, between each pair and from the last one
+     */
+    public static PriceHistogram of(List<Double> bounds, long[] counts) {
+        List<Bucket> buckets = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            buckets.add(new Bucket(i == 0 ? null : bounds.get(i - 1), i == bounds.size() ? null : bounds.get(i), counts[i]));
+        }
+        return new PriceHistogram(buckets);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bucket {
+        /**
+         * Inclusive lower bound, or null for the first bucket.
+         */
+        private Double from;
+        /**
+         * Exclusive upper bound, or null for the last bucket.
+         */
+        private Double to;
+        private long count;
+    }
+}
@@ -0,0 +1,28 @@
+package com.accenture.zonetwo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceStatistics {
+
+    private long count;
+    /**
+     * Null, as are max and average, when the catalog is empty.
+     */
+    private Double min;
+    private Double max;
+    private double sum;
+    private Double average;
+
+    /**
+     * Built from the aggregates the database returns, which are null over an empty catalog.
+     */
+    public PriceStatistics(Long count, Double min, Double max, Double sum) {
+        this(count == null ? 0 : count, min, max, sum == null ? 0 : sum,
+                count == null || count == 0 || sum == null ? null : sum / count);
+    }
+}
@@ -1,5 +1,7 @@
 package com.accenture.zonetwo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -7,6 +9,7 @@ import lombok.NonNull;
 import org.springframework.stereotype.Component;
 
 import javax.validation.constraints.NotEmpty;
+import java.time.Instant;
 
 @Component
 @Data
@@ -20,4 +23,18 @@ public class Product {
     private String name;
     @NonNull
     private Double price;
+    /**
+     * Incremented on every write; drives the ETag. Send it back on update to reject concurrent changes.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long version;
+    /**
+     * Set on every write; drives the Last-Modified header.
+     */
+    @JsonIgnore
+    private Instant updatedAt;
+
+    public Product(Long id, String name, Double price) {
+        this(id, name, price, null, null);
+    }
 }
@@ -0,0 +1,27 @@
+package com.accenture.zonetwo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBatchResult {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        DELETED,
+        CONFLICT,
+        NOT_FOUND,
+        INVALID
+    }
+
+    /**
+     * Position of the item in the request.
+     */
+    private int index;
+    private Long id;
+    private Status status;
+}
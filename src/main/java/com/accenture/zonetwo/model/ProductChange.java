@@ -0,0 +1,30 @@
+package com.accenture.zonetwo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChange {
+
+    public enum Type {
+        SAVED,
+        DELETED
+    }
+
+    /**
+     * Position in the change log; pass the last one seen to resume after it.
+     */
+    private Long sequence;
+    private Type type;
+    private Long productId;
+    /**
+     * The saved state of the product, or null when it was deleted.
+     */
+    private Product product;
+    private Instant changedAt;
+}
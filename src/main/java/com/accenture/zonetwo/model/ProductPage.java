@@ -0,0 +1,19 @@
+package com.accenture.zonetwo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPage {
+
+    private List<Product> products;
+    /**
+     * Id to pass as {@code after} to fetch the next page, or null when this is the last page.
+     */
+    private Long nextAfter;
+}
@@ -0,0 +1,36 @@
+package com.accenture.zonetwo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchCriteria {
+
+    public enum Match {
+        /**
+         * Every word of the query starts one of the words of the product name.
+         */
+        PREFIX,
+        /**
+         * The product name contains the query, ignoring case.
+         */
+        CONTAINS
+    }
+
+    private String name;
+    private Match match = Match.PREFIX;
+    private Double minPrice;
+    private Double maxPrice;
+    private int limit = 100;
+
+    public boolean hasName() {
+        return name != null && !name.isBlank();
+    }
+
+    public boolean hasPriceRange() {
+        return minPrice != null || maxPrice != null;
+    }
+}
@@ -0,0 +1,143 @@
+package com.accenture.zonetwo.web.cache;
+
+import com.accenture.zonetwo.business.cache.CatalogVersion;
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.web.codec.WireFormat;
+import com.accenture.zonetwo.web.codec.WireFormatMappers;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Catalog responses encoded once per {@link WireFormat}, and gzip-compressed when {@code product.response-cache.gzip}
+ * is set, so repeated reads are written out without running Jackson again. Entries are keyed by the
+ * {@link CatalogVersion}, so a write makes every cached response unreachable at once, before they are evicted.
+ * Bounded by the encoded size in {@code product.response-cache.maximum-size}; 0 disables caching.
+ * Hit, miss and eviction counters are published as the {@code cache.*} metrics tagged {@code cache=response}.
+ */
+@Log4j2
+@Component
+public class CatalogResponseCache implements MeterBinder {
+    @Autowired
+    WireFormatMappers wireFormatMappers;
+    @Autowired
+    CatalogVersion catalogVersion;
+
+    private final long maximumBytes;
+    private final boolean gzip;
+    private final Cache<String, EncodedResponse> cache;
+
+    public CatalogResponseCache(@Value("${product.response-cache.maximum-size:64MB}") DataSize maximumSize,
+                                @Value("${product.response-cache.gzip:true}") boolean gzip) {
+        this.maximumBytes = maximumSize.toBytes();
+        this.gzip = gzip;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((String key, EncodedResponse response) -> response.size())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param view   names the response among the catalog views, e.g. the page bounds
+     * @param loader the body to encode on a miss, or null when there is none
+     * @return the encoded body as of the current catalog version, or empty when the loader had none
+     */
+    public Optional<EncodedResponse> get(String view, WireFormat format, Supplier<?> loader) {
+        if (maximumBytes == 0) {
+            return Optional.ofNullable(encode(loader.get(), format));
+        }
+        long version = catalogVersion.get();
+        String key = version + " " + format + " " + view;
+        EncodedResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        // Loaded and encoded outside the cache, so a slow encode never holds up other reads of the key
+        EncodedResponse response = encode(loader.get(), format);
+        if (response != null) {
+            // Not kept when loaded across a write, as nobody will ask for this version again
+            cache.asMap().compute(key, (k, current) ->
+                    current != null || catalogVersion.get() != version ? current : response);
+        }
+        return Optional.ofNullable(response);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "response");
+    }
+
+    private EncodedResponse encode(Object body, WireFormat format) {
+        if (body == null) {
+            return null;
+        }
+        try {
+            byte[] identity = wireFormatMappers.get(format).writeValueAsBytes(body);
+            log.debug("Encoded catalog response as {} in {} bytes", format, identity.length);
+            return new EncodedResponse(identity, gzip ? gzip(identity) : null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] identity) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(identity.length / 4);
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(compressed)) {
+            gzipStream.write(identity);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * An encoded response body. The arrays are shared between requests and must not be modified.
+     */
+    public static final class EncodedResponse {
+        private final byte[] identity;
+        private final byte[] gzip;
+
+        EncodedResponse(byte[] identity, byte[] gzip) {
+            this.identity = identity;
+            this.gzip = gzip;
+        }
+
+        public byte[] getIdentity() {
+            return identity;
+        }
+
+        /**
+         * @return the gzip-compressed body, or null when compression is disabled
+         */
+        public byte[] getGzip() {
+            return gzip;
+        }
+
+        int size() {
+            return identity.length + (gzip == null ? 0 : gzip.length);
+        }
+    }
+}
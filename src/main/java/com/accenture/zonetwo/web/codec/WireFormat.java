@@ -0,0 +1,67 @@
+package com.accenture.zonetwo.web.codec;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+/**
+ * Encodings of product responses. JSON is the default; Smile, Jackson's binary JSON, is for service
+ * consumers that ask for it. It carries the same data model, so any Jackson client reads it with a
+ * {@code SmileFactory}, and it writes each repeated property name as a back-reference, which keeps product
+ * lists compact.
+ */
+public enum WireFormat {
+    JSON(MediaType.APPLICATION_JSON, ""),
+    SMILE(new MediaType("application", "x-jackson-smile"), "-smile");
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    private final MediaType mediaType;
+    private final String etagSuffix;
+
+    WireFormat(MediaType mediaType, String etagSuffix) {
+        this.mediaType = mediaType;
+        this.etagSuffix = etagSuffix;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Told apart in ETags, since each format is a different representation.
+     */
+    public String getEtagSuffix() {
+        return etagSuffix;
+    }
+
+    /**
+     * @return Smile when the Accept header names it ahead of anything JSON would match, otherwise JSON, so
+     * wildcards and browsers keep getting JSON
+     */
+    public static WireFormat negotiate(String accept) {
+        if (accept == null) {
+            return JSON;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return JSON;
+        }
+        MediaType.sortByQualityValue(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            if (SMILE.mediaType.equalsTypeAndSubtype(mediaType)) {
+                return SMILE;
+            }
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return JSON;
+            }
+        }
+        return JSON;
+    }
+}
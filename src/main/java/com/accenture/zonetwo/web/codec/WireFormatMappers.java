@@ -0,0 +1,31 @@
+package com.accenture.zonetwo.web.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Object mappers for each {@link WireFormat}. The Smile one is built from the same builder as the JSON
+ * one, so both follow the {@code spring.jackson.*} settings. It is not a bean, which would make Spring
+ * Boot back off from creating the JSON one.
+ */
+@Component
+public class WireFormatMappers {
+
+    private final Map<WireFormat, ObjectMapper> mappers = new EnumMap<>(WireFormat.class);
+
+    @Autowired
+    public WireFormatMappers(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        mappers.put(WireFormat.JSON, objectMapper);
+        mappers.put(WireFormat.SMILE, objectMapperBuilder.factory(new SmileFactory()).build());
+    }
+
+    public ObjectMapper get(WireFormat format) {
+        return mappers.get(format);
+    }
+}
@@ -1,16 +1,49 @@
 package com.accenture.zonetwo.web.controller;
 
+import com.accenture.zonetwo.business.cache.CatalogVersion;
+import com.accenture.zonetwo.business.index.ProductPriceIndex;
+import com.accenture.zonetwo.business.outbox.ProductChangeFeed;
 import com.accenture.zonetwo.business.service.ProductService;
+import com.accenture.zonetwo.business.transfer.CatalogExporter;
+import com.accenture.zonetwo.business.transfer.CatalogFormat;
+import com.accenture.zonetwo.business.transfer.CatalogImporter;
+import com.accenture.zonetwo.business.transfer.LineReader;
+import com.accenture.zonetwo.model.CatalogImportReport;
+import com.accenture.zonetwo.model.PriceHistogram;
+import com.accenture.zonetwo.model.PriceStatistics;
 import com.accenture.zonetwo.model.Product;
+import com.accenture.zonetwo.model.ProductBatchResult;
+import com.accenture.zonetwo.model.ProductChange;
+import com.accenture.zonetwo.model.ProductPage;
+import com.accenture.zonetwo.model.ProductSearchCriteria;
+import com.accenture.zonetwo.web.cache.CatalogResponseCache;
+import com.accenture.zonetwo.web.codec.WireFormat;
+import com.accenture.zonetwo.web.codec.WireFormatMappers;
+import com.fasterxml.jackson.core.JsonGenerator;
 import lombok.NonNull;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,73 +52,410 @@ import java.util.Optional;
 @CrossOrigin("http://localhost:3000")
 @RequestMapping("/product")
 public class ProductController {
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_HISTOGRAM_BOUNDS = 100;
+
     @Autowired
     ProductService productService;
+    @Autowired
+    WireFormatMappers wireFormatMappers;
+    @Autowired
+    CatalogVersion catalogVersion;
+    @Autowired
+    ProductChangeFeed productChangeFeed;
+    @Autowired
+    CatalogResponseCache catalogResponseCache;
+    @Autowired
+    CatalogImporter catalogImporter;
+    @Autowired
+    CatalogExporter catalogExporter;
 
+    /**
+     * Responds with JSON unless the Accept header asks for Smile, see {@link WireFormat#negotiate}. The other
+     * product endpoints negotiate Smile through Spring's message converters.
+     */
     @GetMapping
-    public ResponseEntity<List<Product>> findAllProducts() {
-        log.info("Retrieve list of products");
-        List<Product> productList = productService.findAllProducts();
+    public ResponseEntity<byte[]> findAllProducts(WebRequest webRequest,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.debug("Retrieve list of products");
+        WireFormat format = WireFormat.negotiate(accept);
+        // Read before loading, so a concurrent write can only make the ETag older than the body. Weak, as the
+        // gzip and identity bodies are equivalent but not byte-equal
+        if(webRequest.checkNotModified("W/\"" + catalogVersion.etag() + format.getEtagSuffix() + "\"")) {
+            log.debug("Product list is not modified");
+            return null;
+        }
+        Optional<CatalogResponseCache.EncodedResponse> productList = catalogResponseCache.get("all", format, () -> {
+            List<Product> products = productService.findAllProducts();
+            return products.isEmpty() ? null : products;
+        });
         if(productList.isEmpty()) {
-            log.warn("Product list is empty: {}", productList);
+            log.warn("Product list is empty");
             return ResponseEntity.notFound().build();
         }
-        log.info("Product list is found. Size: {}", productList::size);
-        return ResponseEntity.ok(productList);
+        log.debug("Product list is found. Bytes: {}", productList.get().getIdentity().length);
+        return encoded(productList.get(), format, acceptEncoding);
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<byte[]> findProductPage(@RequestParam(defaultValue = "0") Long after,
+                                                  @RequestParam(defaultValue = "100") Integer size,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.debug("Retrieve page of products after id {} with size {}", after, size);
+        if(size < 1 || size > MAX_PAGE_SIZE) {
+            log.warn("Page size {} is out of range", size);
+            return ResponseEntity.badRequest().build();
+        }
+        WireFormat format = WireFormat.negotiate(accept);
+        Optional<CatalogResponseCache.EncodedResponse> page = catalogResponseCache.get("page " + after + " " + size, format, () -> {
+            List<Product> productList = productService.findProductsAfter(after, size);
+            Long nextAfter = productList.size() == size ? productList.get(productList.size() - 1).getId() : null;
+            return new ProductPage(productList, nextAfter);
+        });
+        return encoded(page.orElseThrow(), format, acceptEncoding);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<Product>> searchProducts(ProductSearchCriteria criteria) {
+        log.debug("Search products by {}", criteria);
+        if(criteria.getLimit() < 1 || criteria.getLimit() > MAX_PAGE_SIZE) {
+            log.warn("Search limit {} is out of range", criteria.getLimit());
+            return ResponseEntity.badRequest().build();
+        }
+        if(!criteria.hasName() && !criteria.hasPriceRange()) {
+            log.warn("Search has no name or price filter");
+            return ResponseEntity.badRequest().build();
+        }
+        if(criteria.getMinPrice() != null && criteria.getMaxPrice() != null
+                && criteria.getMinPrice() > criteria.getMaxPrice()) {
+            log.warn("Search price range {} - {} is empty", criteria.getMinPrice(), criteria.getMaxPrice());
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productService.searchProducts(criteria));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<PriceStatistics> getPriceStatistics() {
+        log.debug("Retrieve price statistics");
+        return ResponseEntity.ok(productService.getPriceStatistics());
+    }
+
+    /**
+     * Counts products per price bucket, split at the given ascending bounds or the configured ones.
+     */
+    @GetMapping("/stats/histogram")
+    public ResponseEntity<PriceHistogram> getPriceHistogram(@RequestParam(required = false) List<Double> bounds) {
+        log.debug("Retrieve price histogram over {}", bounds);
+        if(bounds != null && (bounds.isEmpty() || bounds.size() > MAX_HISTOGRAM_BOUNDS
+                || !ProductPriceIndex.isAscending(bounds))) {
+            log.warn("Histogram bounds {} are not ascending or out of range", bounds);
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productService.getPriceHistogram(bounds));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProductsAsNdjson() {
+        log.debug("Stream list of products as NDJSON");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> catalogExporter.exportTo(outputStream, CatalogFormat.NDJSON));
+    }
+
+    @GetMapping(value = "/stream", produces = CatalogFormat.CSV_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProductsAsCsv() {
+        log.debug("Stream list of products as CSV");
+        return ResponseEntity.ok()
+                .contentType(CatalogFormat.CSV.getMediaType())
+                .body(outputStream -> catalogExporter.exportTo(outputStream, CatalogFormat.CSV));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProductsAsJsonArray() {
+        log.debug("Stream list of products as JSON array");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> writeProducts(outputStream, WireFormat.JSON));
+    }
+
+    @GetMapping(value = "/stream", produces = WireFormat.SMILE_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProductsAsSmileArray() {
+        log.debug("Stream list of products as Smile array");
+        return ResponseEntity.ok()
+                .contentType(WireFormat.SMILE.getMediaType())
+                .body(outputStream -> writeProducts(outputStream, WireFormat.SMILE));
+    }
+
+    /**
+     * Server-Sent Events stream of product changes after the given sequence, then live ones as they commit.
+     * A reconnecting EventSource resumes from its {@code Last-Event-ID}.
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(defaultValue = "0") Long after,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        long from = lastEventId != null ? lastEventId : after;
+        log.debug("Stream product changes after sequence {}", from);
+        SseEmitter emitter = new SseEmitter();
+        ProductChangeFeed.Subscription subscription =
+                productChangeFeed.subscribe(from, change -> sendChange(emitter, change), emitter::complete);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        return emitter;
+    }
+
+    @GetMapping(value = "/changes", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<ProductChange>> findChanges(@RequestParam(defaultValue = "0") Long after,
+                                                           @RequestParam(defaultValue = "100") Integer size) {
+        log.debug("Retrieve product changes after sequence {} with size {}", after, size);
+        if(size < 1 || size > MAX_PAGE_SIZE) {
+            log.warn("Page size {} is out of range", size);
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productService.findChangesAfter(after, size));
     }
 
+    /**
+     * Responds in the format {@link WireFormat#negotiate} picks, which the ETag names, so a JSON and a Smile
+     * copy never validate each other.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Product> findProductById(@NonNull @PathVariable Long id) {
-        log.info("Find product by passing product id, where id is: {}", id);
+    public ResponseEntity<Product> findProductById(@NonNull @PathVariable Long id, ServletWebRequest webRequest,
+                                                   @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        log.debug("Find product by passing product id, where id is: {}", id);
         Optional<Product> product = (productService.findProductById(id));
         if(product.isEmpty()) {
             log.warn("Product with id {} is not found", id);
-        } else {
-            log.info("Product with id {} is found: {}", id, product);
+            return ResponseEntity.notFound().build();
+        }
+        WireFormat format = WireFormat.negotiate(accept);
+        // Also on a 304, which only carries the headers set before
+        webRequest.getResponse().setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        Instant updatedAt = product.get().getUpdatedAt();
+        long lastModified = updatedAt == null ? -1 : updatedAt.toEpochMilli();
+        if(product.get().getVersion() != null && webRequest.checkNotModified(etagOf(product.get(), format), lastModified)) {
+            log.debug("Product with id {} is not modified", id);
+            return null;
         }
-        return product.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+        log.debug("Product with id {} is found: {}", id, product);
+        return ResponseEntity.ok().contentType(format.getMediaType()).body(product.get());
+    }
+
+    /**
+     * Existence check that never loads the product, unlike the HEAD Spring derives from the GET above.
+     */
+    @RequestMapping(value = "/{id}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> existsProductById(@NonNull @PathVariable Long id) {
+        return productService.existsProduct(id) ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public ResponseEntity<Product> saveProduct(@Valid @RequestBody Product product, BindingResult bindingResult) throws Exception {
-        log.info("Create new product by passing {}", product);
+        log.debug("Create new product by passing {}", product);
         if(bindingResult.hasErrors()) {
             log.error("New product is not created: {}", bindingResult);
             return ResponseEntity.badRequest().build();
         }
 
         Product productSaved = productService.saveProduct(product);
-        log.info("New product is created: {}", product);
+        log.info("New product is created with id {}", productSaved.getId());
         return new ResponseEntity<>(productSaved, HttpStatus.CREATED);
     }
 
+    /**
+     * Imports a CSV or NDJSON catalog streamed in the request body, as {@link CatalogImporter} does.
+     */
+    @PostMapping(value = "/import", consumes = {CatalogFormat.CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<CatalogImportReport> importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                              InputStream body) throws IOException {
+        log.info("Import products as {}", contentType);
+        LineReader lines = LineReader.of(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)));
+        CatalogImportReport report;
+        try {
+            report = catalogImporter.importFrom(lines, CatalogFormat.of(contentType),
+                    progress -> log.debug("Imported {} records", progress.getRecords()));
+        } catch (IllegalArgumentException e) {
+            log.warn("Products are not imported: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        log.info("Imported {} records, {} created", report.getRecords(), report.getCreated());
+        return ResponseEntity.ok(report);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<ProductBatchResult>> saveProducts(@RequestBody List<Product> products) {
+        log.info("Create batch of {} products", products.size());
+        return ResponseEntity.ok(productService.saveProducts(products));
+    }
+
+    @PutMapping("/batch")
+    public ResponseEntity<List<ProductBatchResult>> updateProducts(@RequestBody List<Product> products) {
+        log.info("Update batch of {} products", products.size());
+        return ResponseEntity.ok(productService.updateProducts(products));
+    }
+
+    @DeleteMapping("/batch")
+    public ResponseEntity<List<ProductBatchResult>> deleteProducts(@RequestBody List<Long> ids) {
+        log.info("Delete batch of {} products", ids.size());
+        return ResponseEntity.ok(productService.deleteProducts(ids));
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public ResponseEntity<Product> deleteProductById(@NonNull @PathVariable Long id) {
-        log.info("Delete product by passing id, where id is: {}", id);
-        Optional<Product> product = productService.findProductById(id);
-        if(product.isEmpty()) {
+    public ResponseEntity<Void> deleteProductById(@NonNull @PathVariable Long id) {
+        log.debug("Delete product by passing id, where id is: {}", id);
+        if(!productService.deleteProduct(id)) {
             log.warn("Product with id: {} not found", id);
             return ResponseEntity.notFound().build();
         }
-        productService.deleteProduct(id);
-        log.info("Product with id {} is deleted: {}", id, product);
-        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        log.info("Product with id {} is deleted", id);
+        return ResponseEntity.noContent().build();
     }
 
     @PutMapping("/{id}")
     @ResponseStatus(HttpStatus.ACCEPTED)
     public ResponseEntity<Product> updateProductById(@NonNull @PathVariable Long id,
-                                                     @Valid @RequestBody Product product, BindingResult bindingResult) throws Exception {
+                                                     @Valid @RequestBody Product product, BindingResult bindingResult,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                     @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         product.setId(id);
-        log.info("Update existing product with id: {} and new body: {}", id, product);
+        log.debug("Update existing product with id: {} and new body: {}", id, product);
         if (bindingResult.hasErrors() || !id.equals(product.getId())) {
             log.warn("Product with id: {} not found", id);
             return ResponseEntity.notFound().build();
         }
-        productService.saveProduct(product);
-        log.info("Product with id {} is updated: {}", id, product);
-        return new ResponseEntity<>(product, HttpStatus.CREATED);
+        if (ifMatch != null && !ifMatch.trim().equals("*")) {
+            Long version = versionOf(ifMatch, id);
+            if (version == null) {
+                log.warn("If-Match {} does not match product with id {}", ifMatch, id);
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+            product.setVersion(version);
+        }
+        Product productUpdated;
+        try {
+            productUpdated = productService.updateProduct(product);
+        } catch (HttpClientErrorException e) {
+            // A stale version is a failed precondition when it came from If-Match, a conflict when from the body
+            HttpStatus status = e.getStatusCode() == HttpStatus.PRECONDITION_FAILED && ifMatch == null
+                    ? HttpStatus.CONFLICT : e.getStatusCode();
+            log.warn("Product with id {} is not updated: {}", id, status);
+            return ResponseEntity.status(status).build();
+        }
+        log.info("Product with id {} is updated to version {}", id, productUpdated.getVersion());
+        WireFormat format = WireFormat.negotiate(accept);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .contentType(format.getMediaType())
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(etagOf(productUpdated, format))
+                .body(productUpdated);
+    }
+
+    private void writeProducts(OutputStream outputStream, WireFormat format) throws IOException {
+        try (JsonGenerator generator = wireFormatMappers.get(format).getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            productService.streamAllProducts(product -> {
+                try {
+                    generator.writeObject(product);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes a cached response as is, picking the gzip copy when there is one and the client accepts it.
+     */
+    private static ResponseEntity<byte[]> encoded(CatalogResponseCache.EncodedResponse response, WireFormat format,
+                                                  String acceptEncoding) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if(response.getGzip() != null && acceptsGzip(acceptEncoding)) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.getGzip());
+        }
+        return builder.body(response.getIdentity());
+    }
+
+    /**
+     * @return whether an Accept-Encoding header accepts gzip with a non-zero quality: as gzip when it is
+     * listed, which wins over any coding ({@code *}), otherwise as any coding
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if(acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for(String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if(!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                continue;
+            }
+            boolean rejected = false;
+            for(int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().replace(" ", "");
+                if(parameter.startsWith("q=") && parameter.substring(2).matches("0(\\.0*)?")) {
+                    rejected = true;
+                }
+            }
+            if(name.equalsIgnoreCase("gzip")) {
+                return !rejected;
+            }
+            wildcard = !rejected;
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    private static void sendChange(SseEmitter emitter, ProductChange change) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(change.getSequence()))
+                    .name(change.getType().name().toLowerCase())
+                    .data(change, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Strong ETag of a single product in one format, derived from its version.
+     */
+    static String etagOf(Product product, WireFormat format) {
+        return product.getId() + "-" + product.getVersion() + format.getEtagSuffix();
+    }
+
+    /**
+     * @return the version named by an If-Match ETag of the given product, or null when it names another one
+     */
+    static Long versionOf(String ifMatch, Long id) {
+        String etag = ifMatch.trim();
+        if (etag.startsWith("W/")) {
+            return null;
+        }
+        etag = etag.replace("\"", "");
+        // The version is the same whichever format the ETag was handed out in
+        for (WireFormat format : WireFormat.values()) {
+            if (!format.getEtagSuffix().isEmpty() && etag.endsWith(format.getEtagSuffix())) {
+                etag = etag.substring(0, etag.length() - format.getEtagSuffix().length());
+            }
+        }
+        String prefix = id + "-";
+        if (!etag.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(etag.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 }
@@ -0,0 +1,145 @@
+package com.accenture.zonetwo.web.filter;
+
+import com.accenture.zonetwo.web.limit.GradientConcurrencyLimiter;
+import com.accenture.zonetwo.web.limit.TokenBucket;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Sheds load before a request reaches the controller. A request is rejected with 429 when its client's
+ * token bucket or the global one is empty, and with 503 when the adaptive concurrency limit is reached,
+ * both with a {@code Retry-After} header. GET and HEAD requests are reads; everything else is a write
+ * and is shed first: writes leave a reserve of tokens in the global bucket for reads, and may only use part
+ * of the concurrency limit. Rejections are counted as {@code product.admission.rejected}, tagged with the
+ * reason and priority.
+ * <p>
+ * Streaming responses give their permit back once the handler returns, without a latency sample: a change
+ * subscription may stay open for hours, and how long a stream takes says nothing about load.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    static final String METRIC_NAME = "product.admission.rejected";
+    private static final long MAX_CLIENTS = 100_000;
+
+    private final MeterRegistry meterRegistry;
+    private final GradientConcurrencyLimiter concurrencyLimiter;
+    private final TokenBucket globalBucket;
+    private final double globalWriteReserve;
+    private final Supplier<TokenBucket> clientBucketFactory;
+    private final String clientHeader;
+    private final Set<String> trustedProxies;
+    private final Duration retryAfter;
+    private final Cache<String, TokenBucket> clientBuckets = Caffeine.newBuilder()
+            .maximumSize(MAX_CLIENTS)
+            .expireAfterAccess(Duration.ofMinutes(5))
+            .build();
+
+    /**
+     * @param globalBucket        null to not cap the overall rate
+     * @param globalWriteReserve  tokens of the global bucket that writes leave for reads
+     * @param clientBucketFactory null to not cap the rate per client
+     * @param clientHeader        header identifying the client, such as {@code X-Forwarded-For} behind a proxy;
+     *                            null or empty to use the remote address
+     * @param trustedProxies      addresses of the proxies in front of this one that append to the client header
+     */
+    public AdmissionControlFilter(MeterRegistry meterRegistry, GradientConcurrencyLimiter concurrencyLimiter,
+                                  TokenBucket globalBucket, double globalWriteReserve,
+                                  Supplier<TokenBucket> clientBucketFactory,
+                                  String clientHeader, Set<String> trustedProxies, Duration retryAfter) {
+        this.meterRegistry = meterRegistry;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.globalBucket = globalBucket;
+        this.globalWriteReserve = globalWriteReserve;
+        this.clientBucketFactory = clientBucketFactory;
+        this.clientHeader = clientHeader;
+        this.trustedProxies = trustedProxies;
+        this.retryAfter = retryAfter;
+        Gauge.builder("product.admission.limit", concurrencyLimiter, GradientConcurrencyLimiter::getLimit)
+                .description("Adaptive limit on product requests in flight")
+                .register(meterRegistry);
+        Gauge.builder("product.admission.in.flight", concurrencyLimiter, GradientConcurrencyLimiter::getInFlight)
+                .description("Product requests in flight")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean write = !HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod());
+        if (clientBucketFactory != null) {
+            long wait = clientBuckets.get(clientOf(request), client -> clientBucketFactory.get()).tryAcquire();
+            if (wait > 0) {
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, "client_rate", write, wait);
+                return;
+            }
+        }
+        if (globalBucket != null) {
+            long wait = globalBucket.tryAcquire(write ? globalWriteReserve : 0);
+            if (wait > 0) {
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, "global_rate", write, wait);
+                return;
+            }
+        }
+        GradientConcurrencyLimiter.Permit permit = concurrencyLimiter.tryAcquire(write);
+        if (permit == null) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, "concurrency", write, retryAfter.toNanos());
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            permit.release(true);
+            throw e;
+        }
+        if (request.isAsyncStarted()) {
+            permit.ignore();
+        } else {
+            permit.release(response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value());
+        }
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        String client = clientHeader == null || clientHeader.isEmpty() ? null : request.getHeader(clientHeader);
+        if (client == null || client.isBlank()) {
+            return request.getRemoteAddr();
+        }
+        // Each proxy appends the address it was reached from, and anything left of that came from the client:
+        // the right-most entry not added by a trusted proxy is the one to go by
+        String[] hops = client.split(",");
+        for (int i = hops.length - 1; i > 0; i--) {
+            String hop = hops[i].trim();
+            if (!trustedProxies.contains(hop)) {
+                return hop;
+            }
+        }
+        return hops[0].trim();
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String reason, boolean write, long waitNanos) {
+        Counter.builder(METRIC_NAME)
+                .description("Product requests shed before reaching the controller")
+                .tag("reason", reason)
+                .tag("priority", write ? "write" : "read")
+                .register(meterRegistry)
+                .increment();
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1))));
+    }
+}
@@ -0,0 +1,127 @@
+package com.accenture.zonetwo.web.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Adaptive limit on requests in flight, in the style of a gradient limiter. Every completed request
+ * compares its latency with the long-term average: while latency stays within {@link #RTT_TOLERANCE}
+ * of it the limit grows by about its square root, and as latency rises the limit shrinks in proportion,
+ * so queueing is shed at the door instead of building up in the worker and connection pools. Failures
+ * cut the limit by {@link #BACKOFF_RATIO}.
+ * <p>
+ * Writes may only take {@code writeShare} of the limit, so under pressure they are shed before reads.
+ */
+public class GradientConcurrencyLimiter {
+    static final double RTT_TOLERANCE = 1.5;
+    static final double BACKOFF_RATIO = 0.9;
+    private static final double SMOOTHING = 0.2;
+    private static final int LONG_RTT_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double writeShare;
+    private final LongSupplier clock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private double longRtt;
+
+    public GradientConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double writeShare) {
+        this(initialLimit, minLimit, maxLimit, writeShare, System::nanoTime);
+    }
+
+    GradientConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double writeShare, LongSupplier clock) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit || writeShare <= 0 || writeShare > 1) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= initial <= max"
+                    + " and the write share must be in (0, 1]");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.writeShare = writeShare;
+        this.clock = clock;
+    }
+
+    /**
+     * @return a permit to release when the request completes, or null when it must be shed
+     */
+    public Permit tryAcquire(boolean write) {
+        int allowed = Math.max(1, (int) (write ? limit * writeShare : limit));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(current + 1);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void onSample(long rtt, int inFlightAtStart, boolean failed) {
+        if (failed) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+            return;
+        }
+        rtt = Math.max(rtt, 1);
+        if (longRtt == 0) {
+            longRtt = rtt;
+        } else {
+            longRtt += (rtt - longRtt) / LONG_RTT_WINDOW;
+        }
+        if (longRtt / rtt > 2) {
+            // Latency recovered well below the average, which still remembers an overload; let it catch up
+            longRtt *= 0.95;
+        }
+        if (inFlightAtStart < limit / 2) {
+            // Too little traffic to tell whether a higher limit would hold
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRtt / rtt));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + newLimit * SMOOTHING));
+    }
+
+    public class Permit {
+        private final long startedAt = clock.getAsLong();
+        private final int inFlightAtStart;
+        private boolean released;
+
+        private Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * Ends the request and feeds its latency to the limit; failed requests back the limit off.
+         */
+        public void release(boolean failed) {
+            if (free()) {
+                onSample(clock.getAsLong() - startedAt, inFlightAtStart, failed);
+            }
+        }
+
+        /**
+         * Ends the request without a latency sample, for requests whose duration says nothing about load.
+         */
+        public void ignore() {
+            free();
+        }
+
+        private synchronized boolean free() {
+            if (released) {
+                return false;
+            }
+            released = true;
+            inFlight.decrementAndGet();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.accenture.zonetwo.web.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds up to {@code capacity} tokens, refilled continuously at {@code ratePerSecond}. Each admitted
+ * request takes one, so bursts up to the capacity pass and the sustained rate is capped.
+ */
+public class TokenBucket {
+    private final double capacity;
+    private final double tokensPerNano;
+    private final LongSupplier clock;
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(double ratePerSecond, double capacity) {
+        this(ratePerSecond, capacity, System::nanoTime);
+    }
+
+    TokenBucket(double ratePerSecond, double capacity, LongSupplier clock) {
+        if (ratePerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("Token bucket needs a positive rate and a capacity of at least 1");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.clock = clock;
+        this.tokens = capacity;
+        this.refilledAt = clock.getAsLong();
+    }
+
+    /**
+     * @return 0 when a token was taken, otherwise the nanoseconds until the next one is available
+     */
+    public long tryAcquire() {
+        return tryAcquire(0);
+    }
+
+    /**
+     * Takes a token only if at least {@code reserve} are left afterwards, so once the bucket runs low the
+     * reserve goes to callers that ask with a smaller one.
+     *
+     * @return 0 when a token was taken, otherwise the nanoseconds until one can be taken with the reserve left
+     */
+    public synchronized long tryAcquire(double reserve) {
+        long now = clock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+        if (tokens >= 1 + reserve) {
+            tokens--;
+            return 0;
+        }
+        return (long) Math.ceil((1 + reserve - tokens) / tokensPerNano);
+    }
+}
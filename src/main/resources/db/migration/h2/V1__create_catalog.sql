@@ -0,0 +1,25 @@
+-- Same schema as mysql/V1__create_catalog.sql, for the embedded profile
+create table product (
+    id bigint not null,
+    name varchar(255),
+    price double precision,
+    updated_at timestamp(6),
+    version bigint default 0 not null,
+    primary key (id)
+);
+
+create index idx_product_name_price on product (name, price);
+
+create sequence product_seq start with 1 increment by 50;
+
+create table product_change (
+    id bigint generated by default as identity,
+    type varchar(16) not null,
+    product_id bigint not null,
+    name varchar(255),
+    price double precision,
+    changed_at timestamp(6),
+    primary key (id)
+);
+
+create index idx_product_change_changed_at on product_change (changed_at);
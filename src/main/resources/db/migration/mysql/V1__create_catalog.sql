@@ -0,0 +1,28 @@
+-- Schema that spring.jpa.hibernate.ddl-auto=update used to create. Databases created that way are
+-- baselined at this version by the fast-start profile.
+create table product (
+    id bigint not null,
+    name varchar(255),
+    price double precision,
+    updated_at datetime(6),
+    version bigint default 0 not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_product_name_price on product (name, price);
+
+-- MySQL has no sequences; Hibernate emulates product_seq with a table
+create table product_seq (next_val bigint) engine=InnoDB;
+insert into product_seq values (1);
+
+create table product_change (
+    id bigint not null auto_increment,
+    type varchar(16) not null,
+    product_id bigint not null,
+    name varchar(255),
+    price double precision,
+    changed_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_product_change_changed_at on product_change (changed_at);
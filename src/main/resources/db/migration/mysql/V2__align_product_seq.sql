@@ -0,0 +1,7 @@
+-- Databases created before product ids came from product_seq are baselined at V1 without it, or got it
+-- from ddl-auto=update starting at 1. Either way it would hand out ids already in use: move it past them.
+-- The sequence holds the end of the last reserved block, hence max(id) plus the allocation size of 50.
+create table if not exists product_seq (next_val bigint) engine=InnoDB;
+insert into product_seq (next_val) select 1 from dual where not exists (select * from product_seq);
+update product_seq set next_val = (select max(id) + 50 from product)
+    where next_val < (select max(id) + 50 from product);
@@ -0,0 +1,128 @@
+package com.accenture.zonetwo.business.cache;
+
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductCacheTest {
+
+    private ProductCache cache;
+    private AtomicInteger loads;
+    private Function<Long, Optional<Product>> loader;
+
+    @BeforeEach
+    public void init() {
+        cache = new ProductCache(100, Duration.ofMinutes(10), Duration.ofMinutes(1), Duration.ofSeconds(2));
+        loads = new AtomicInteger();
+        loader = id -> {
+            loads.incrementAndGet();
+            return id == 1L ? Optional.of(new Product(1L, "Box", 100D)) : Optional.empty();
+        };
+    }
+
+    @Test
+    void testReadThrough() {
+        assertEquals("Box", cache.get(1L, loader).get().getName());
+        assertEquals("Box", cache.get(1L, loader).get().getName());
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    void testNegativeCaching() {
+        assertFalse(cache.get(2L, loader).isPresent());
+        assertFalse(cache.get(2L, loader).isPresent());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testCachedProductIsCopied() {
+        cache.get(1L, loader).get().setName("Changed");
+        assertEquals("Box", cache.get(1L, loader).get().getName());
+    }
+
+    @Test
+    void testInvalidatedOnProductChange() {
+        cache.get(1L, loader);
+        cache.onProductChanged(ProductChangedEvent.deleted(1L));
+        cache.get(1L, loader);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testRemembersRecentInvalidations() {
+        assertFalse(cache.isRecentlyInvalidated(1L));
+        cache.onProductChanged(ProductChangedEvent.deleted(1L));
+        assertTrue(cache.isRecentlyInvalidated(1L));
+        assertFalse(cache.isRecentlyInvalidated(2L));
+        cache.invalidateAll();
+        assertTrue(cache.isRecentlyInvalidated(2L));
+
+        ProductCache noLag = new ProductCache(100, Duration.ofMinutes(10), Duration.ofMinutes(1), Duration.ZERO);
+        noLag.invalidate(1L);
+        noLag.invalidateAll();
+        assertFalse(noLag.isRecentlyInvalidated(1L));
+    }
+
+    @Test
+    void testLoadOverlappingInvalidationIsNotCached() {
+        Optional<Product> loaded = cache.get(1L, id -> {
+            cache.onProductChanged(ProductChangedEvent.deleted(1L));
+            return Optional.of(new Product(1L, "Box", 100D));
+        });
+        assertEquals("Box", loaded.get().getName());
+        assertNull(cache.getIfPresent(1L));
+    }
+
+    @Test
+    void testInvalidationDoesNotWaitForLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Optional<Product>> load = executor.submit(() -> cache.get(1L, id -> {
+                loading.countDown();
+                await(release);
+                return loader.apply(id);
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            CompletableFuture.runAsync(() -> cache.invalidate(1L)).get(5, TimeUnit.SECONDS);
+            release.countDown();
+            assertTrue(load.get(5, TimeUnit.SECONDS).isPresent());
+            assertNull(cache.getIfPresent(1L));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testDisabledCache() {
+        ProductCache disabled = new ProductCache(0, Duration.ofMinutes(10), Duration.ofMinutes(1), Duration.ofSeconds(2));
+        disabled.get(1L, loader);
+        disabled.get(1L, loader);
+        assertEquals(2, loads.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
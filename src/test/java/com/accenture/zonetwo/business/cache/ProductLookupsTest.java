@@ -0,0 +1,145 @@
+package com.accenture.zonetwo.business.cache;
+
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.model.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductLookupsTest {
+    private static final int CALLERS = 8;
+
+    private CatalogVersion catalogVersion;
+    private ProductLookups lookups;
+    private MeterRegistry registry;
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void init() {
+        catalogVersion = new CatalogVersion();
+        lookups = new ProductLookups(catalogVersion);
+        registry = new SimpleMeterRegistry();
+        lookups.bindTo(registry);
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentLookupsShareOneQuery() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Optional<Product>>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> lookups.findById(1L, id -> {
+                loads.incrementAndGet();
+                await(release);
+                return Optional.of(new Product(id, "Box", 100D));
+            })));
+        }
+        awaitCoalesced("findById", CALLERS - 1);
+        release.countDown();
+
+        List<Product> products = new ArrayList<>();
+        for (Future<Optional<Product>> result : results) {
+            products.add(result.get(5, TimeUnit.SECONDS).get());
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1D, counter("findById", "executed"));
+        assertTrue(products.stream().allMatch(product -> product.equals(new Product(1L, "Box", 100D))));
+        assertEquals(CALLERS, products.stream().map(System::identityHashCode).distinct().count());
+    }
+
+    @Test
+    void testWaitingCallersGetTheFailure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<List<Product>>> results = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            results.add(executor.submit(() -> lookups.findAll(() -> {
+                await(release);
+                throw new IllegalStateException("Database is down");
+            })));
+        }
+        awaitCoalesced("findAll", 1);
+        release.countDown();
+
+        for (Future<List<Product>> result : results) {
+            Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertEquals(IllegalStateException.class, e.getCause().getClass());
+        }
+    }
+
+    @Test
+    void testLookupAfterWriteDoesNotJoinEarlierQuery() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<List<Product>> beforeWrite = executor.submit(() -> lookups.findAll(() -> {
+            await(release);
+            return List.of(new Product(1L, "Box", 100D));
+        }));
+        awaitExecuted("findAll", 1);
+        catalogVersion.onProductChanged(ProductChangedEvent.saved(new Product(1L, "Bag", 50D)));
+
+        List<Product> afterWrite = lookups.findAll(() -> List.of(new Product(1L, "Bag", 50D)));
+        release.countDown();
+        assertEquals("Bag", afterWrite.get(0).getName());
+        assertEquals("Box", beforeWrite.get(5, TimeUnit.SECONDS).get(0).getName());
+        assertEquals(2D, counter("findAll", "executed"));
+        assertEquals(0D, counter("findAll", "coalesced"));
+    }
+
+    @Test
+    void testSequentialLookupsEachQuery() {
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            lookups.findAll(() -> List.of(new Product(loads.incrementAndGet() + 0L, "Box", 100D)));
+        }
+        assertEquals(3, loads.get());
+        assertEquals(3D, counter("findAll", "executed"));
+        assertEquals(0D, counter("findAll", "coalesced"));
+    }
+
+    private void awaitCoalesced(String lookup, int count) throws InterruptedException {
+        awaitCounter(lookup, "coalesced", count);
+    }
+
+    private void awaitExecuted(String lookup, int count) throws InterruptedException {
+        awaitCounter(lookup, "executed", count);
+    }
+
+    private void awaitCounter(String lookup, String outcome, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (counter(lookup, outcome) < count) {
+            assertTrue(System.nanoTime() < deadline, "Callers did not reach the query in flight");
+            Thread.sleep(1);
+        }
+    }
+
+    private double counter(String lookup, String outcome) {
+        return registry.get("product.lookups").tag("lookup", lookup).tag("outcome", outcome).functionCounter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.accenture.zonetwo.business.index;
+
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.business.repository.ProductRepository;
+import com.accenture.zonetwo.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ProductMatchIndexTest {
+
+    private ProductMatchIndex index;
+
+    @BeforeEach
+    public void init() {
+        index = newIndex();
+        when(index.productRepository.streamAllProducts()).thenReturn(Stream.of(new Product(1L, "Box", 100D)));
+        index.load();
+    }
+
+    @Test
+    void testHasMatch() {
+        assertTrue(index.isReady());
+        assertTrue(index.hasMatch(new Product(null, "Box", 100D)));
+        assertTrue(index.hasMatch(new Product(2L, "Box", 100D)));
+        assertFalse(index.hasMatch(new Product(1L, "Box", 100D)));
+        assertFalse(index.hasMatch(new Product(null, "Box", 101D)));
+    }
+
+    @Test
+    void testPutReplacesPreviousKey() {
+        index.put(new Product(1L, "Bag", 50D));
+        assertFalse(index.hasMatch(new Product(null, "Box", 100D)));
+        assertTrue(index.hasMatch(new Product(null, "Bag", 50D)));
+    }
+
+    @Test
+    void testRemove() {
+        index.remove(1L);
+        assertFalse(index.hasMatch(new Product(null, "Box", 100D)));
+    }
+
+    @Test
+    void testFollowsProductChanges() {
+        index.onProductChanged(ProductChangedEvent.saved(new Product(2L, "Bag", 50D)));
+        assertTrue(index.hasMatch(new Product(null, "Bag", 50D)));
+        index.onProductChanged(ProductChangedEvent.deleted(2L));
+        assertFalse(index.hasMatch(new Product(null, "Bag", 50D)));
+    }
+
+    @Test
+    void testIgnoresChangesOlderThanIndexed() {
+        index.onProductChanged(ProductChangedEvent.saved(new Product(2L, "Crate", 30D, 3L, null)));
+        index.onProductChanged(ProductChangedEvent.saved(new Product(2L, "Bag", 50D, 2L, null)));
+        assertTrue(index.hasMatch(new Product(null, "Crate", 30D)));
+        assertFalse(index.hasMatch(new Product(null, "Bag", 50D)));
+        index.onProductChanged(ProductChangedEvent.saved(new Product(2L, "Bag", 50D, 4L, null)));
+        assertFalse(index.hasMatch(new Product(null, "Crate", 30D)));
+        assertTrue(index.hasMatch(new Product(null, "Bag", 50D)));
+    }
+
+    @Test
+    void testProductDeletedWhileLoadingStaysDeleted() {
+        ProductMatchIndex loading = newIndex();
+        when(loading.productRepository.streamAllProducts()).thenReturn(Stream.of(
+                new Product(1L, "Box", 100D), new Product(2L, "Bag", 50D))
+                .peek(product -> {
+                    if (product.getId() == 1L) {
+                        loading.onProductChanged(ProductChangedEvent.deleted(2L));
+                    }
+                }));
+        loading.load();
+        assertTrue(loading.hasMatch(new Product(null, "Box", 100D)));
+        assertFalse(loading.hasMatch(new Product(null, "Bag", 50D)));
+    }
+
+    @Test
+    void testDisabledIndexIsNeverReady() {
+        ProductMatchIndex disabled = new ProductMatchIndex(false);
+        disabled.load();
+        disabled.put(new Product(1L, "Box", 100D));
+        assertFalse(disabled.isReady());
+        assertFalse(disabled.hasMatch(new Product(null, "Box", 100D)));
+    }
+
+    private static ProductMatchIndex newIndex() {
+        ProductMatchIndex index = new ProductMatchIndex(true);
+        index.productRepository = mock(ProductRepository.class);
+        index.transactionManager = mock(PlatformTransactionManager.class);
+        return index;
+    }
+}
@@ -0,0 +1,98 @@
+package com.accenture.zonetwo.business.index;
+
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.business.repository.ProductRepository;
+import com.accenture.zonetwo.model.PriceHistogram;
+import com.accenture.zonetwo.model.PriceStatistics;
+import com.accenture.zonetwo.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ProductPriceIndexTest {
+
+    private ProductPriceIndex index;
+
+    @BeforeEach
+    public void init() {
+        index = new ProductPriceIndex(true, new double[]{20, 50});
+        index.productRepository = mock(ProductRepository.class);
+        index.transactionManager = mock(PlatformTransactionManager.class);
+        when(index.productRepository.streamAllProducts()).thenReturn(Stream.of(
+                new Product(1L, "Red box", 100D, 0L, null),
+                new Product(2L, "Blue box", 20D, 0L, null),
+                new Product(3L, "Shoebox", 50D, 0L, null),
+                new Product(4L, "Bag", 10D, 0L, null)));
+        index.load();
+    }
+
+    @Test
+    void testLoad() {
+        assertTrue(index.isReady());
+        assertEquals(new PriceStatistics(4L, 10D, 100D, 180D), index.statistics());
+        assertEquals(45D, index.statistics().getAverage());
+    }
+
+    @Test
+    void testHistogramOverDefaultBounds() {
+        assertEquals(PriceHistogram.of(List.of(20D, 50D), new long[]{1, 1, 2}), index.histogram(List.of(20D, 50D)));
+    }
+
+    @Test
+    void testHistogramOverOtherBounds() {
+        assertEquals(PriceHistogram.of(List.of(15D, 60D, 100D), new long[]{1, 2, 0, 1}),
+                index.histogram(List.of(15D, 60D, 100D)));
+        assertEquals(PriceHistogram.of(List.of(200D), new long[]{4, 0}), index.histogram(List.of(200D)));
+    }
+
+    @Test
+    void testFollowsProductChanges() {
+        index.onProductChanged(ProductChangedEvent.saved(new Product(1L, "Red box", 30D)));
+        index.onProductChanged(ProductChangedEvent.saved(new Product(5L, "Crate", 5D)));
+        index.onProductChanged(ProductChangedEvent.deleted(3L));
+        index.onProductChanged(ProductChangedEvent.deleted(9L));
+        assertEquals(new PriceStatistics(4L, 5D, 30D, 65D), index.statistics());
+        assertEquals(PriceHistogram.of(List.of(20D, 50D), new long[]{2, 2, 0}), index.histogram(List.of(20D, 50D)));
+        assertEquals(PriceHistogram.of(List.of(25D), new long[]{3, 1}), index.histogram(List.of(25D)));
+    }
+
+    @Test
+    void testEmptyStatistics() {
+        for (long id = 1; id <= 4; id++) {
+            index.onProductChanged(ProductChangedEvent.deleted(id));
+        }
+        assertEquals(new PriceStatistics(0L, null, null, null), index.statistics());
+    }
+
+    @Test
+    void testReconcileRebuildsWhenDatabaseDiffers() {
+        when(index.productRepository.findPriceStatistics()).thenReturn(new PriceStatistics(4L, 10D, 100D, 180D));
+        index.reconcile();
+        verify(index.productRepository, times(1)).streamAllProducts();
+
+        when(index.productRepository.findPriceStatistics()).thenReturn(new PriceStatistics(1L, 70D, 70D, 70D));
+        when(index.productRepository.streamAllProducts()).thenReturn(Stream.of(new Product(6L, "Lamp", 70D, 0L, null)));
+        index.reconcile();
+        verify(index.productRepository, times(2)).streamAllProducts();
+        assertEquals(new PriceStatistics(1L, 70D, 70D, 70D), index.statistics());
+    }
+
+    @Test
+    void testRejectsUnorderedBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new ProductPriceIndex(true, new double[]{50, 20}));
+        assertFalse(ProductPriceIndex.isAscending(List.of(10D, Double.POSITIVE_INFINITY)));
+    }
+
+    @Test
+    void testDisabledIndexIsNeverReady() {
+        ProductPriceIndex disabled = new ProductPriceIndex(false, new double[]{20, 50});
+        disabled.load();
+        assertFalse(disabled.isReady());
+    }
+}
@@ -0,0 +1,80 @@
+package com.accenture.zonetwo.business.index;
+
+import com.accenture.zonetwo.business.repository.ProductRepository;
+import com.accenture.zonetwo.business.service.ProductService;
+import com.accenture.zonetwo.model.Product;
+import com.accenture.zonetwo.model.ProductSearchCriteria;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The search index and its database fallback must return the same page for the same criteria.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:search-consistency;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("embedded")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ProductSearchConsistencyTest {
+
+    @Autowired
+    private ProductService service;
+    @Autowired
+    private ProductSearchIndex disabledIndex;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ProductSearchIndex index;
+
+    @BeforeAll
+    public void init() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            // Later products are cheaper, so price order is the reverse of id order
+            products.add(new Product(null, "Box " + i, 100D - i));
+            products.add(new Product(null, "Crate " + i, 100D - i));
+        }
+        service.saveProducts(products);
+
+        index = new ProductSearchIndex(true);
+        index.productRepository = productRepository;
+        index.transactionManager = transactionManager;
+        index.load();
+    }
+
+    @Test
+    void testIndexAndDatabaseReturnTheSamePage() {
+        assertFalse(disabledIndex.isReady());
+        List<ProductSearchCriteria> criteriaList = List.of(
+                new ProductSearchCriteria(null, ProductSearchCriteria.Match.PREFIX, null, null, 5),
+                new ProductSearchCriteria(null, ProductSearchCriteria.Match.PREFIX, 70D, 90D, 5),
+                new ProductSearchCriteria("box", ProductSearchCriteria.Match.PREFIX, 80D, null, 4),
+                new ProductSearchCriteria("crate 3", ProductSearchCriteria.Match.PREFIX, null, null, 3),
+                // Word prefixes anywhere in the name, in any order
+                new ProductSearchCriteria("3", ProductSearchCriteria.Match.PREFIX, null, null, 5),
+                new ProductSearchCriteria("2 bo", ProductSearchCriteria.Match.PREFIX, null, null, 4),
+                new ProductSearchCriteria("OX", ProductSearchCriteria.Match.CONTAINS, null, null, 6),
+                new ProductSearchCriteria("ate 2", ProductSearchCriteria.Match.CONTAINS, null, 75D, 3),
+                new ProductSearchCriteria("x 1", ProductSearchCriteria.Match.CONTAINS, null, null, 100));
+        for (ProductSearchCriteria criteria : criteriaList) {
+            List<Long> database = ids(service.searchProducts(criteria));
+            assertFalse(database.isEmpty(), criteria::toString);
+            assertEquals(database, ids(index.search(criteria)), criteria::toString);
+        }
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,140 @@
+package com.accenture.zonetwo.business.index;
+
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.business.repository.ProductRepository;
+import com.accenture.zonetwo.model.Product;
+import com.accenture.zonetwo.model.ProductSearchCriteria;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    public void init() {
+        index = new ProductSearchIndex(true);
+        index.productRepository = mock(ProductRepository.class);
+        index.transactionManager = mock(PlatformTransactionManager.class);
+        when(index.productRepository.streamAllProducts()).thenReturn(Stream.of(
+                new Product(1L, "Red Box", 100D, 0L, null),
+                new Product(2L, "Blue box", 20D, 0L, null),
+                new Product(3L, "Shoebox", 50D, 0L, null),
+                new Product(4L, "Bag", 50D, 0L, null)));
+        index.load();
+    }
+
+    @Test
+    void testLoad() {
+        assertTrue(index.isReady());
+        assertEquals(List.of(4L), ids(search("bag", ProductSearchCriteria.Match.PREFIX, null, null)));
+    }
+
+    @Test
+    void testSearchByWordPrefix() {
+        assertEquals(List.of(1L, 2L), ids(search("bo", ProductSearchCriteria.Match.PREFIX, null, null)));
+        assertEquals(List.of(1L), ids(search("box re", ProductSearchCriteria.Match.PREFIX, null, null)));
+        assertEquals(List.of(), ids(search("ox", ProductSearchCriteria.Match.PREFIX, null, null)));
+    }
+
+    @Test
+    void testSearchBySubstring() {
+        assertEquals(List.of(1L, 2L, 3L), ids(search("BOX", ProductSearchCriteria.Match.CONTAINS, null, null)));
+        assertEquals(List.of(1L, 2L, 3L), ids(search("ox", ProductSearchCriteria.Match.CONTAINS, null, null)));
+        assertEquals(List.of(3L), ids(search("oebo", ProductSearchCriteria.Match.CONTAINS, null, null)));
+    }
+
+    @Test
+    void testSearchByPriceRange() {
+        assertEquals(List.of(2L, 3L, 4L), ids(search(null, ProductSearchCriteria.Match.PREFIX, null, 50D)));
+        assertEquals(List.of(3L, 4L), ids(search(null, ProductSearchCriteria.Match.PREFIX, 50D, 50D)));
+        assertEquals(List.of(2L, 3L), ids(search("box", ProductSearchCriteria.Match.CONTAINS, 10D, 60D)));
+    }
+
+    @Test
+    void testSearchStopsAtLimit() {
+        ProductSearchCriteria criteria = new ProductSearchCriteria("box", ProductSearchCriteria.Match.CONTAINS, null, null, 2);
+        assertEquals(2, index.search(criteria).size());
+    }
+
+    @Test
+    void testSearchReturnsLowestIdsFirst() {
+        ProductSearchCriteria byPrice = new ProductSearchCriteria(null, ProductSearchCriteria.Match.PREFIX, null, null, 2);
+        assertEquals(List.of(1L, 2L), index.search(byPrice).stream().map(Product::getId).collect(Collectors.toList()));
+        ProductSearchCriteria byName = new ProductSearchCriteria("box", ProductSearchCriteria.Match.CONTAINS, null, null, 2);
+        assertEquals(List.of(1L, 2L), index.search(byName).stream().map(Product::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testBroadSearchWalksCatalogInIdOrder() {
+        for (long id = 10; id < 10 + ProductSearchIndex.MAX_SELECTED_CANDIDATES * 2; id++) {
+            index.put(new Product(id, "Crate " + id, 10_000D - id, 0L, null));
+        }
+        ProductSearchCriteria byPrice = new ProductSearchCriteria(null, ProductSearchCriteria.Match.PREFIX, 30D, 9_980D, 3);
+        assertEquals(List.of(1L, 3L, 4L), index.search(byPrice).stream().map(Product::getId).collect(Collectors.toList()));
+        ProductSearchCriteria byWord = new ProductSearchCriteria("crate", ProductSearchCriteria.Match.PREFIX, null, 9_980D, 3);
+        assertEquals(List.of(20L, 21L, 22L), index.search(byWord).stream().map(Product::getId).collect(Collectors.toList()));
+        ProductSearchCriteria bySeparator = new ProductSearchCriteria("e 1", ProductSearchCriteria.Match.CONTAINS, null, null, 2);
+        assertEquals(List.of(10L, 11L), index.search(bySeparator).stream().map(Product::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testFollowsProductChanges() {
+        index.onProductChanged(ProductChangedEvent.saved(new Product(1L, "Green crate", 100D)));
+        assertEquals(List.of(2L), ids(search("box", ProductSearchCriteria.Match.PREFIX, null, null)));
+        assertEquals(List.of(1L), ids(search("cra", ProductSearchCriteria.Match.PREFIX, null, null)));
+        index.onProductChanged(ProductChangedEvent.deleted(1L));
+        assertEquals(List.of(), ids(search("cra", ProductSearchCriteria.Match.PREFIX, null, null)));
+        assertEquals(List.of(), ids(search(null, ProductSearchCriteria.Match.PREFIX, 90D, null)));
+    }
+
+    @Test
+    void testIgnoresChangesOlderThanIndexed() {
+        index.onProductChanged(ProductChangedEvent.saved(new Product(1L, "Green crate", 100D, 2L, null)));
+        index.onProductChanged(ProductChangedEvent.saved(new Product(1L, "Red box", 90D, 1L, null)));
+        index.onProductChanged(ProductChangedEvent.saved(new Product(1L, "Red box", 90D, 0L, null)));
+        assertEquals(List.of(1L), ids(search("cra", ProductSearchCriteria.Match.PREFIX, null, null)));
+        assertEquals(List.of(2L), ids(search("box", ProductSearchCriteria.Match.PREFIX, null, null)));
+    }
+
+    @Test
+    void testProductDeletedWhileLoadingStaysDeleted() {
+        ProductSearchIndex loading = new ProductSearchIndex(true);
+        loading.productRepository = mock(ProductRepository.class);
+        loading.transactionManager = mock(PlatformTransactionManager.class);
+        when(loading.productRepository.streamAllProducts()).thenReturn(Stream.of(
+                new Product(1L, "Red Box", 100D, 0L, null), new Product(2L, "Blue box", 20D, 0L, null))
+                .peek(product -> {
+                    if (product.getId() == 1L) {
+                        loading.onProductChanged(ProductChangedEvent.deleted(2L));
+                    }
+                }));
+        loading.load();
+        assertEquals(List.of(1L), ids(loading.search(new ProductSearchCriteria("box", ProductSearchCriteria.Match.PREFIX, null, null, 10))));
+    }
+
+    @Test
+    void testDisabledIndexIsNeverReady() {
+        ProductSearchIndex disabled = new ProductSearchIndex(false);
+        disabled.load();
+        disabled.put(new Product(1L, "Box", 100D));
+        assertFalse(disabled.isReady());
+        assertTrue(disabled.search(new ProductSearchCriteria("box", ProductSearchCriteria.Match.PREFIX, null, null, 10)).isEmpty());
+    }
+
+    private List<Product> search(String name, ProductSearchCriteria.Match match, Double minPrice, Double maxPrice) {
+        return index.search(new ProductSearchCriteria(name, match, minPrice, maxPrice, 10));
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getId).sorted().collect(Collectors.toList());
+    }
+}
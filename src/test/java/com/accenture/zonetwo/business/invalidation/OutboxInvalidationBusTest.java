@@ -0,0 +1,101 @@
+package com.accenture.zonetwo.business.invalidation;
+
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.business.outbox.ProductChangeFeed;
+import com.accenture.zonetwo.business.outbox.ProductChangeOutbox;
+import com.accenture.zonetwo.model.Product;
+import com.accenture.zonetwo.model.ProductChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class OutboxInvalidationBusTest {
+
+    private OutboxInvalidationBus bus;
+    private ProductChangeOutbox outbox;
+    private List<ProductInvalidation> received;
+
+    @BeforeEach
+    public void init() {
+        outbox = mock(ProductChangeOutbox.class);
+        when(outbox.latestSequence()).thenReturn(10L);
+        bus = new OutboxInvalidationBus(Duration.ofMinutes(1));
+        bus.productChangeOutbox = outbox;
+        bus.productChangeFeed = mock(ProductChangeFeed.class);
+        bus.init();
+        received = new ArrayList<>();
+        bus.subscribe(received::add);
+    }
+
+    @Test
+    void testPollsChangesAfterTheLatestAtStartup() {
+        when(outbox.findChangesAfter(10L, OutboxInvalidationBus.POLL_PAGE_SIZE))
+                .thenReturn(List.of(change(11L, ProductChange.Type.SAVED, 1L), change(12L, ProductChange.Type.DELETED, 2L)));
+        bus.poll();
+        assertEquals(List.of(
+                new ProductInvalidation(ProductChangedEvent.Type.SAVED, 1L, 11L, null),
+                new ProductInvalidation(ProductChangedEvent.Type.DELETED, 2L, 12L, null)), received);
+        assertEquals(12L, bus.getLastSequence());
+    }
+
+    @Test
+    void testSkipsOwnChanges() {
+        bus.publish(new ProductInvalidation(ProductChangedEvent.Type.SAVED, 1L, 11L, "node"));
+        when(outbox.findChangesAfter(10L, OutboxInvalidationBus.POLL_PAGE_SIZE))
+                .thenReturn(List.of(change(11L, ProductChange.Type.SAVED, 1L), change(12L, ProductChange.Type.SAVED, 2L)));
+        bus.poll();
+        assertEquals(List.of(2L), received.stream().map(ProductInvalidation::getProductId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testFeedsChangesOfOtherNodesToSubscribers() {
+        ProductChange own = change(11L, ProductChange.Type.SAVED, 1L);
+        ProductChange remote = change(12L, ProductChange.Type.DELETED, 2L);
+        bus.publish(new ProductInvalidation(ProductChangedEvent.Type.SAVED, 1L, 11L, "node"));
+        when(outbox.findChangesAfter(10L, OutboxInvalidationBus.POLL_PAGE_SIZE)).thenReturn(List.of(own, remote));
+        bus.poll();
+        verify(bus.productChangeFeed, never()).onProductChange(own);
+        verify(bus.productChangeFeed, times(1)).onProductChange(remote);
+    }
+
+    @Test
+    void testRechecksSequencesCommittedLate() {
+        when(outbox.findChangesAfter(10L, OutboxInvalidationBus.POLL_PAGE_SIZE))
+                .thenReturn(List.of(change(13L, ProductChange.Type.SAVED, 3L)));
+        when(outbox.findChanges(Set.of(11L, 12L))).thenReturn(List.of());
+        bus.poll();
+        assertEquals(2, bus.getGapCount());
+
+        when(outbox.findChangesAfter(13L, OutboxInvalidationBus.POLL_PAGE_SIZE)).thenReturn(List.of());
+        when(outbox.findChanges(Set.of(11L, 12L))).thenReturn(List.of(change(12L, ProductChange.Type.SAVED, 2L)));
+        bus.poll();
+        assertEquals(List.of(3L, 2L), received.stream().map(ProductInvalidation::getProductId).collect(Collectors.toList()));
+        assertEquals(1, bus.getGapCount());
+    }
+
+    @Test
+    void testGapsExpire() {
+        OutboxInvalidationBus expiring = new OutboxInvalidationBus(Duration.ZERO);
+        expiring.productChangeOutbox = outbox;
+        expiring.productChangeFeed = mock(ProductChangeFeed.class);
+        expiring.init();
+        when(outbox.findChangesAfter(10L, OutboxInvalidationBus.POLL_PAGE_SIZE))
+                .thenReturn(List.of(change(12L, ProductChange.Type.SAVED, 2L)));
+        expiring.poll();
+        assertEquals(0, expiring.getGapCount());
+    }
+
+    private static ProductChange change(Long sequence, ProductChange.Type type, Long productId) {
+        Product product = type == ProductChange.Type.SAVED ? new Product(productId, "Box", 10D) : null;
+        return new ProductChange(sequence, type, productId, product, Instant.now());
+    }
+}
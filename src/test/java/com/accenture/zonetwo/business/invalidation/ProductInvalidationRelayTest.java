@@ -0,0 +1,131 @@
+package com.accenture.zonetwo.business.invalidation;
+
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.business.repository.ProductRepository;
+import com.accenture.zonetwo.model.Product;
+import com.accenture.zonetwo.model.ProductChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ProductInvalidationRelayTest {
+
+    private LoopbackInvalidationBus bus;
+    private ProductInvalidationRelay writer;
+    private ProductInvalidationRelay reader;
+    private ProductRepository readerRepository;
+    private List<ProductChangedEvent> readerEvents;
+
+    @BeforeEach
+    public void init() {
+        bus = new LoopbackInvalidationBus();
+        writer = relay("writer", mock(ProductRepository.class), new ArrayList<>());
+        readerRepository = mock(ProductRepository.class);
+        readerEvents = new ArrayList<>();
+        reader = relay("reader", readerRepository, readerEvents);
+    }
+
+    @Test
+    void testRemoteChangesAreReloadedAndPublished() {
+        when(readerRepository.findProductsByIdIn(List.of(1L))).thenReturn(List.of(new Product(1L, "Box", 20D, 2L, null)));
+        writer.onProductChange(change(7L, ProductChange.Type.SAVED, 1L));
+        writer.onProductChange(change(8L, ProductChange.Type.DELETED, 2L));
+        assertTrue(readerEvents.isEmpty());
+
+        reader.flush();
+        assertEquals(List.of(ProductChangedEvent.saved(new Product(1L, "Box", 20D, 2L, null)),
+                ProductChangedEvent.deleted(2L)), readerEvents);
+    }
+
+    @Test
+    void testInvalidationsAreCoalescedByProduct() {
+        when(readerRepository.findProductsByIdIn(List.of(1L))).thenReturn(List.of(new Product(1L, "Box", 30D, 3L, null)));
+        writer.onProductChange(change(7L, ProductChange.Type.SAVED, 1L));
+        writer.onProductChange(change(8L, ProductChange.Type.SAVED, 1L));
+        writer.onProductChange(change(9L, ProductChange.Type.SAVED, 1L));
+        writer.onProductChange(change(10L, ProductChange.Type.SAVED, 2L));
+        writer.onProductChange(change(11L, ProductChange.Type.DELETED, 2L));
+        writer.onProductChange(change(12L, ProductChange.Type.SAVED, 2L));
+
+        reader.flush();
+        verify(readerRepository, times(1)).findProductsByIdIn(any());
+        assertEquals(List.of(ProductChangedEvent.saved(new Product(1L, "Box", 30D, 3L, null)),
+                ProductChangedEvent.deleted(2L)), readerEvents);
+        reader.flush();
+        assertEquals(2, readerEvents.size());
+    }
+
+    @Test
+    void testProductGoneSinceInvalidationIsDeleted() {
+        when(readerRepository.findProductsByIdIn(List.of(1L))).thenReturn(List.of());
+        writer.onProductChange(change(7L, ProductChange.Type.SAVED, 1L));
+        reader.flush();
+        assertEquals(List.of(ProductChangedEvent.deleted(1L)), readerEvents);
+    }
+
+    @Test
+    void testLocalWritesDuringFlushAreNotOverwritten() {
+        when(readerRepository.findProductsByIdIn(List.of(1L, 2L, 3L))).thenAnswer(invocation -> {
+            List<Product> read = List.of(new Product(1L, "Box", 20D, 2L, null),
+                    new Product(2L, "Bag", 20D, 2L, null), new Product(3L, "Crate", 20D, 2L, null));
+            // Local writes commit after the read and publish their own events first
+            reader.onProductChange(change(20L, ProductChange.Type.SAVED, 1L));
+            readerEvents.add(ProductChangedEvent.saved(new Product(1L, "Box", 30D, 3L, null)));
+            reader.onProductChange(change(21L, ProductChange.Type.DELETED, 2L));
+            readerEvents.add(ProductChangedEvent.deleted(2L));
+            return read;
+        });
+        writer.onProductChange(change(7L, ProductChange.Type.SAVED, 1L));
+        writer.onProductChange(change(8L, ProductChange.Type.SAVED, 2L));
+        writer.onProductChange(change(9L, ProductChange.Type.SAVED, 3L));
+
+        reader.flush();
+        assertEquals(List.of(ProductChangedEvent.saved(new Product(1L, "Box", 30D, 3L, null)),
+                ProductChangedEvent.deleted(2L),
+                ProductChangedEvent.saved(new Product(3L, "Crate", 20D, 2L, null))), readerEvents);
+
+        // Local writes between flushes are not remembered
+        reader.onProductChange(change(22L, ProductChange.Type.SAVED, 3L));
+        when(readerRepository.findProductsByIdIn(List.of(3L))).thenReturn(List.of(new Product(3L, "Crate", 40D, 4L, null)));
+        writer.onProductChange(change(10L, ProductChange.Type.SAVED, 3L));
+        reader.flush();
+        assertEquals(ProductChangedEvent.saved(new Product(3L, "Crate", 40D, 4L, null)), readerEvents.get(3));
+    }
+
+    @Test
+    void testOwnChangesAreIgnored() {
+        reader.onProductChange(change(7L, ProductChange.Type.SAVED, 1L));
+        reader.flush();
+        assertTrue(readerEvents.isEmpty());
+        verifyNoInteractions(readerRepository);
+    }
+
+    private ProductInvalidationRelay relay(String nodeId, ProductRepository repository, List<ProductChangedEvent> events) {
+        ProductInvalidationRelay relay = new ProductInvalidationRelay(nodeId);
+        relay.invalidationBus = bus;
+        relay.productRepository = repository;
+        relay.eventPublisher = mock(ApplicationEventPublisher.class);
+        doAnswer(invocation -> events.add(invocation.getArgument(0)))
+                .when(relay.eventPublisher).publishEvent(any(Object.class));
+        relay.transactionTemplate = mock(TransactionTemplate.class);
+        when(relay.transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        relay.chunkSize = 500;
+        relay.start();
+        return relay;
+    }
+
+    private static ProductChange change(Long sequence, ProductChange.Type type, Long productId) {
+        Product product = type == ProductChange.Type.SAVED ? new Product(productId, "Box", 10D) : null;
+        return new ProductChange(sequence, type, productId, product, Instant.now());
+    }
+}
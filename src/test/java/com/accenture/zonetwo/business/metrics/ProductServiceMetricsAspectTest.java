@@ -0,0 +1,87 @@
+package com.accenture.zonetwo.business.metrics;
+
+import com.accenture.zonetwo.business.service.ProductService;
+import com.accenture.zonetwo.model.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ProductServiceMetricsAspectTest {
+
+    private MeterRegistry meterRegistry;
+    private ProductService service;
+    private ProductService timedService;
+
+    @BeforeEach
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        ProductServiceMetricsAspect aspect = new ProductServiceMetricsAspect();
+        aspect.meterRegistry = meterRegistry;
+        service = mock(ProductService.class);
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(service);
+        proxyFactory.addAspect(aspect);
+        timedService = proxyFactory.getProxy();
+    }
+
+    @Test
+    void testFindProductByIdOutcomes() {
+        when(service.findProductById(1L)).thenReturn(Optional.of(new Product(1L, "Box", 100D)));
+        when(service.findProductById(2L)).thenReturn(Optional.empty());
+        timedService.findProductById(1L);
+        timedService.findProductById(2L);
+        timedService.findProductById(2L);
+        assertEquals(1, count("findProductById", "found"));
+        assertEquals(2, count("findProductById", "not_found"));
+    }
+
+    @Test
+    void testSaveProductOutcomes() throws Exception {
+        Product product = new Product(null, "Box", 100D);
+        when(service.saveProduct(product))
+                .thenReturn(product)
+                .thenThrow(new HttpClientErrorException(HttpStatus.CONFLICT))
+                .thenThrow(new IllegalStateException());
+        timedService.saveProduct(product);
+        assertThrows(HttpClientErrorException.class, () -> timedService.saveProduct(product));
+        assertThrows(IllegalStateException.class, () -> timedService.saveProduct(product));
+        assertEquals(1, count("saveProduct", "success"));
+        assertEquals(1, count("saveProduct", "conflict"));
+        assertEquals(1, count("saveProduct", "error"));
+    }
+
+    @Test
+    void testUpdateProductOutcomes() {
+        Product product = new Product(1L, "Box", 100D, 3L, null);
+        when(service.updateProduct(product))
+                .thenReturn(product)
+                .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND))
+                .thenThrow(new HttpClientErrorException(HttpStatus.PRECONDITION_FAILED))
+                .thenThrow(new HttpClientErrorException(HttpStatus.CONFLICT))
+                .thenThrow(new IllegalStateException());
+        timedService.updateProduct(product);
+        assertThrows(HttpClientErrorException.class, () -> timedService.updateProduct(product));
+        assertThrows(HttpClientErrorException.class, () -> timedService.updateProduct(product));
+        assertThrows(HttpClientErrorException.class, () -> timedService.updateProduct(product));
+        assertThrows(IllegalStateException.class, () -> timedService.updateProduct(product));
+        assertEquals(1, count("updateProduct", "success"));
+        assertEquals(1, count("updateProduct", "not_found"));
+        assertEquals(2, count("updateProduct", "conflict"));
+        assertEquals(1, count("updateProduct", "error"));
+    }
+
+    private long count(String method, String outcome) {
+        return meterRegistry.get(ProductServiceMetricsAspect.METRIC_NAME)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .timer().count();
+    }
+}
@@ -0,0 +1,128 @@
+package com.accenture.zonetwo.business.outbox;
+
+import com.accenture.zonetwo.model.ProductChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ProductChangeFeedTest {
+
+    private ProductChangeFeed feed;
+    private final List<ProductChange> received = new CopyOnWriteArrayList<>();
+    private final AtomicInteger closed = new AtomicInteger();
+
+    @BeforeEach
+    public void init() {
+        feed = new ProductChangeFeed(2);
+        feed.productChangeOutbox = mock(ProductChangeOutbox.class);
+        feed.gapTimeout = Duration.ofSeconds(10);
+        feed.executor = Runnable::run;
+    }
+
+    @Test
+    void testReplaysThenFollowsLiveChanges() {
+        when(feed.productChangeOutbox.findChangesAfter(3L, ProductChangeFeed.REPLAY_PAGE_SIZE))
+                .thenReturn(List.of(change(4L), change(5L)));
+        ProductChangeFeed.Subscription subscription = feed.subscribe(3L, received::add, closed::incrementAndGet);
+
+        feed.onProductChange(change(6L));
+
+        assertEquals(List.of(4L, 5L, 6L), sequences());
+        assertEquals(6L, subscription.getLastSequence());
+        assertEquals(1, feed.getSubscriberCount());
+    }
+
+    @Test
+    void testSkipsChangesAlreadyReplayed() {
+        ProductChangeFeed.Subscription subscription = feed.new Subscription(0L, received::add, closed::incrementAndGet);
+        subscription.offer(change(1L));
+        subscription.offer(change(2L));
+        when(feed.productChangeOutbox.findChangesAfter(0L, ProductChangeFeed.REPLAY_PAGE_SIZE))
+                .thenReturn(List.of(change(1L)));
+
+        subscription.replay();
+
+        assertEquals(List.of(1L, 2L), sequences());
+    }
+
+    @Test
+    void testClosesSubscriberThatFallsBehind() {
+        ProductChangeFeed.Subscription subscription = feed.new Subscription(0L, received::add, closed::incrementAndGet);
+        subscription.offer(change(1L));
+        subscription.offer(change(2L));
+        subscription.offer(change(3L));
+
+        assertEquals(1, closed.get());
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    void testClosesSubscriberWhoseConsumerFails() {
+        when(feed.productChangeOutbox.findChangesAfter(0L, ProductChangeFeed.REPLAY_PAGE_SIZE)).thenReturn(List.of());
+        feed.subscribe(0L, change -> {
+            throw new IllegalStateException();
+        }, closed::incrementAndGet);
+
+        feed.onProductChange(change(1L));
+        feed.onProductChange(change(2L));
+
+        assertEquals(1, closed.get());
+        assertEquals(0, feed.getSubscriberCount());
+    }
+
+    @Test
+    void testWaitsForChangeThatCommitsAfterALaterOne() throws InterruptedException {
+        CountDownLatch delivered = new CountDownLatch(2);
+        // 2 committed first: the outbox has it alone at first, then both once 1 commits
+        when(feed.productChangeOutbox.findChangesAfter(0L, ProductChangeFeed.REPLAY_PAGE_SIZE))
+                .thenReturn(List.of(), List.of(change(2L, Instant.now())),
+                        List.of(change(1L, Instant.now()), change(2L, Instant.now())));
+        feed.subscribe(0L, change -> {
+            received.add(change);
+            delivered.countDown();
+        }, closed::incrementAndGet);
+
+        feed.onProductChange(change(2L, Instant.now()));
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1L, 2L), sequences());
+    }
+
+    @Test
+    void testContiguousPrefixStopsAtRecentGap() {
+        List<ProductChange> changes = List.of(change(4L), change(5L), change(7L, Instant.now()), change(8L));
+
+        assertEquals(2, ProductChangeOutbox.contiguousPrefix(3L, changes, Duration.ofSeconds(10)));
+        assertEquals(0, ProductChangeOutbox.contiguousPrefix(1L, changes.subList(2, 4), Duration.ofSeconds(10)));
+    }
+
+    @Test
+    void testContiguousPrefixPassesOldGap() {
+        List<ProductChange> changes = List.of(change(4L), change(6L), change(9L));
+
+        assertEquals(3, ProductChangeOutbox.contiguousPrefix(0L, changes, Duration.ofSeconds(10)));
+    }
+
+    private List<Long> sequences() {
+        return received.stream().map(ProductChange::getSequence).collect(Collectors.toList());
+    }
+
+    private static ProductChange change(Long sequence) {
+        return change(sequence, Instant.EPOCH);
+    }
+
+    private static ProductChange change(Long sequence, Instant changedAt) {
+        return new ProductChange(sequence, ProductChange.Type.DELETED, sequence, null, changedAt);
+    }
+}
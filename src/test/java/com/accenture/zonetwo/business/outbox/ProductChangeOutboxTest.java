@@ -0,0 +1,70 @@
+package com.accenture.zonetwo.business.outbox;
+
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.business.mappers.ProductChangeMapStructMapperImpl;
+import com.accenture.zonetwo.model.Product;
+import com.accenture.zonetwo.model.ProductChange;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Appending to the outbox against the embedded database.
+ */
+public class ProductChangeOutboxTest {
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private ProductChangeOutbox outbox;
+
+    @BeforeEach
+    public void init() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:outbox-" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/h2").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        outbox = new ProductChangeOutbox();
+        outbox.jdbcTemplate = jdbcTemplate;
+        outbox.productChangeMapStructMapper = new ProductChangeMapStructMapperImpl();
+        outbox.eventPublisher = mock(ApplicationEventPublisher.class);
+    }
+
+    @AfterEach
+    public void close() {
+        dataSource.close();
+    }
+
+    @Test
+    void testAppendPublishesChangesWithTheirSequences() {
+        outbox.append(List.of(ProductChangedEvent.saved(new Product(1L, "Box", 100D)),
+                ProductChangedEvent.deleted(2L),
+                ProductChangedEvent.saved(new Product(3L, "Bag", 40D))));
+
+        ArgumentCaptor<ProductChange> published = ArgumentCaptor.forClass(ProductChange.class);
+        verify(outbox.eventPublisher, times(3)).publishEvent(published.capture());
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "select id, type, product_id, name from product_change order by id");
+        assertEquals(3, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            ProductChange change = published.getAllValues().get(i);
+            assertEquals(((Number) rows.get(i).get("id")).longValue(), change.getSequence());
+            assertEquals(rows.get(i).get("type"), change.getType().name());
+            assertEquals(((Number) rows.get(i).get("product_id")).longValue(), change.getProductId());
+            assertNotNull(change.getChangedAt());
+        }
+        assertEquals("Bag", published.getAllValues().get(2).getProduct().getName());
+        assertNull(published.getAllValues().get(1).getProduct());
+        assertNull(rows.get(1).get("name"));
+    }
+}
@@ -1,9 +1,23 @@
 package com.accenture.zonetwo.business.service.impl;
 
+import com.accenture.zonetwo.business.cache.CatalogVersion;
+import com.accenture.zonetwo.business.cache.ProductCache;
+import com.accenture.zonetwo.business.cache.ProductLookups;
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.business.index.ProductMatchIndex;
+import com.accenture.zonetwo.business.index.ProductPriceIndex;
+import com.accenture.zonetwo.business.index.ProductSearchIndex;
 import com.accenture.zonetwo.business.mappers.ProductMapStructMapper;
+import com.accenture.zonetwo.business.outbox.ProductChangeOutbox;
 import com.accenture.zonetwo.business.repository.ProductRepository;
 import com.accenture.zonetwo.business.repository.model.ProductDAO;
+import com.accenture.zonetwo.business.snapshot.CatalogSnapshot;
+import com.accenture.zonetwo.model.PriceHistogram;
+import com.accenture.zonetwo.model.PriceStatistics;
 import com.accenture.zonetwo.model.Product;
+import com.accenture.zonetwo.model.ProductBatchResult;
+import com.accenture.zonetwo.model.ProductChange;
+import com.accenture.zonetwo.model.ProductSearchCriteria;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,12 +26,22 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.HttpClientErrorException;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -32,6 +56,20 @@ public class ProductServiceTest {
     private ProductServiceImpl service;
     @Mock
     private ProductMapStructMapper mapper;
+    @Mock
+    private ProductMatchIndex matchIndex;
+    @Mock
+    private ProductSearchIndex searchIndex;
+    @Mock
+    private ProductPriceIndex priceIndex;
+    @Mock
+    private CatalogSnapshot snapshot;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private ProductChangeOutbox changeOutbox;
+    @Mock
+    private TransactionTemplate transactionTemplate;
 
     private Product product;
     private ProductDAO productDAO;
@@ -45,6 +83,17 @@ public class ProductServiceTest {
 
     @BeforeEach
     public void init() {
+        service.productCache = new ProductCache(100, Duration.ofMinutes(10), Duration.ofSeconds(30), Duration.ofSeconds(2));
+        service.catalogVersion = new CatalogVersion();
+        service.productLookups = new ProductLookups(service.catalogVersion);
+        service.replicaLagTolerance = Duration.ofSeconds(2);
+        service.batchChunkSize = 2;
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
         product = createProduct(1L, "Box", 100D);
         productDAO = createProductDAO(1L, "Box", 100D);
         productList = createProductList(product);
@@ -53,75 +102,396 @@ public class ProductServiceTest {
 
     @Test
     void testFindAllProducts() {
-        when(repository.findAll()).thenReturn(productDAOList);
-        when(mapper.productDAOToProduct(productDAO)).thenReturn(product);
+        when(repository.findAllProducts()).thenReturn(productList);
         List<Product> products = service.findAllProducts();
         assertEquals(3, products.size());
-        verify(repository, times(1)).findAll();
+        verify(repository, times(1)).findAllProducts();
+        verifyNoInteractions(mapper);
     }
 
     @Test
     void testFindAllProductsInvalid() {
-        when(repository.findAll()).thenReturn(Collections.emptyList());
+        when(repository.findAllProducts()).thenReturn(Collections.emptyList());
         assertTrue(service.findAllProducts().isEmpty());
-        verify(repository, times(1)).findAll();
+        verify(repository, times(1)).findAllProducts();
     }
 
     @Test
-    void testFindProductById() {
-        when(repository.findById(anyLong())).thenReturn(Optional.of(productDAO));
+    void testFindAllProductsUsesSnapshotWhenReady() {
+        when(snapshot.isReady()).thenReturn(true);
+        when(snapshot.findAll()).thenReturn(productList);
+        assertEquals(productList, service.findAllProducts());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void testFindProductByIdUsesSnapshotWhenReady() {
+        when(snapshot.isReady()).thenReturn(true);
+        when(snapshot.findById(1L)).thenReturn(Optional.of(product));
+        assertEquals(product, service.findProductById(1L).get());
+        verifyNoInteractions(repository);
+        assertEquals(0, service.productCache.stats().requestCount());
+    }
+
+    @Test
+    void testFindProductsAfter() {
+        when(repository.findProductsByIdGreaterThan(0L, PageRequest.of(0, 3))).thenReturn(productList);
+        List<Product> products = service.findProductsAfter(0L, 3);
+        assertEquals(3, products.size());
+        verify(repository, never()).findAllProducts();
+    }
+
+    @Test
+    void testStreamAllProducts() {
+        when(repository.streamAllProducts()).thenReturn(productList.stream());
+        List<Product> products = new ArrayList<>();
+        service.streamAllProducts(products::add);
+        assertEquals(productList, products);
+        verify(repository, never()).findAllProducts();
+    }
+
+    @Test
+    void testSearchProductsUsesSearchIndexWhenReady() {
+        ProductSearchCriteria criteria = new ProductSearchCriteria("bo", ProductSearchCriteria.Match.PREFIX, null, null, 10);
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.search(criteria)).thenReturn(productList);
+        assertEquals(productList, service.searchProducts(criteria));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void testGetPriceStatisticsUsesPriceIndexWhenReady() {
+        PriceStatistics priceStatistics = new PriceStatistics(3L, 10D, 30D, 60D);
+        when(priceIndex.isReady()).thenReturn(true);
+        when(priceIndex.statistics()).thenReturn(priceStatistics);
+        assertEquals(priceStatistics, service.getPriceStatistics());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void testGetPriceHistogramFallsBackToRepository() {
+        when(priceIndex.isReady()).thenReturn(false);
+        when(priceIndex.getDefaultBounds()).thenReturn(List.of(10D, 20D));
+        when(repository.countByPriceLessThan(10D)).thenReturn(1L);
+        when(repository.countByPriceLessThan(20D)).thenReturn(3L);
+        when(repository.count()).thenReturn(6L);
+        assertEquals(PriceHistogram.of(List.of(10D, 20D), new long[]{1, 2, 3}), service.getPriceHistogram(null));
+    }
+
+    @Test
+    void testSearchProductsFallsBackToRepository() {
+        ProductSearchCriteria criteria = new ProductSearchCriteria("50%_Off", ProductSearchCriteria.Match.CONTAINS, 10D, null, 10);
+        when(repository.search(List.of("%50!%!_off%"), 10D, null, 10)).thenReturn(productDAOList);
+        when(mapper.productDAOToProduct(productDAO)).thenReturn(product);
+        assertEquals(3, service.searchProducts(criteria).size());
+        verify(repository, times(1)).search(List.of("%50!%!_off%"), 10D, null, 10);
+    }
+
+    @Test
+    void testSearchProductsFallsBackToWordPrefixes() {
+        ProductSearchCriteria criteria = new ProductSearchCriteria(" Red-BOX ", ProductSearchCriteria.Match.PREFIX, null, null, 5);
+        when(repository.search(List.of("% red%", "% box%"), null, null, 5)).thenReturn(productDAOList);
         when(mapper.productDAOToProduct(productDAO)).thenReturn(product);
+        assertEquals(3, service.searchProducts(criteria).size());
+        verify(repository, times(1)).search(List.of("% red%", "% box%"), null, null, 5);
+    }
+
+    @Test
+    void testFindProductById() {
+        when(repository.findProductById(anyLong())).thenReturn(Optional.of(product));
         Optional<Product> returnedProduct = service.findProductById(product.getId());
         assertEquals(product.getId(), returnedProduct.get().getId());
         assertEquals(product.getName(), returnedProduct.get().getName());
         assertEquals(product.getPrice(), returnedProduct.get().getPrice());
-        verify(repository, times(1)).findById(anyLong());
+        verify(repository, times(1)).findProductById(anyLong());
+        verify(repository, never()).findById(anyLong());
     }
 
     @Test
     void testFindProductByIdInvalid() {
-        when(repository.findById(anyLong())).thenReturn(Optional.empty());
-        assertFalse(service.findProductById(anyLong()).isPresent());
-        verify(repository, times(1)).findById(anyLong());
+        when(repository.findProductById(anyLong())).thenReturn(Optional.empty());
+        assertFalse(service.findProductById(1L).isPresent());
+        verify(repository, times(1)).findProductById(anyLong());
     }
 
     @Test
     void testSaveProduct() throws Exception {
+        Product newProduct = createProduct(null, "Box", 100D);
         when(repository.save(productDAO)).thenReturn(productDAO);
         when(mapper.productDAOToProduct(productDAO)).thenReturn(product);
-        when(mapper.productToProductDAO(product)).thenReturn(productDAO);
-        Product savedProduct = service.saveProduct(product);
+        when(mapper.productToProductDAO(newProduct)).thenReturn(productDAO);
+        Product savedProduct = service.saveProduct(newProduct);
         assertTrue(service.hasNoMatch(savedProduct));
         assertEquals(product, savedProduct);
         verify(repository, times(1)).save(productDAO);
     }
 
+    @Test
+    void testSaveProductWithIdUpdates() throws Exception {
+        when(repository.updateProduct(eq(1L), eq("Box"), eq(100D), any())).thenReturn(1);
+        when(repository.findVersionById(1L)).thenReturn(Optional.of(3L));
+        assertEquals(3L, service.saveProduct(product).getVersion());
+        verify(repository, never()).save(any());
+        verify(repository, never()).updateIfVersion(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testUpdateProduct() {
+        Product expected = createProduct(1L, "Box", 100D);
+        expected.setVersion(4L);
+        when(repository.updateIfVersion(eq(1L), eq("Box"), eq(100D), any(), eq(4L))).thenReturn(1);
+        Product updated = service.updateProduct(expected);
+        assertEquals(5L, updated.getVersion());
+        assertNotNull(updated.getUpdatedAt());
+        verify(repository, never()).findVersionById(anyLong());
+        verify(repository, never()).findById(anyLong());
+        verify(changeOutbox, times(1)).append(List.of(ProductChangedEvent.saved(updated)));
+        verify(eventPublisher, times(1)).publishEvent(ProductChangedEvent.saved(updated));
+    }
+
+    @Test
+    void testUpdateProductStaleVersion() {
+        Product expected = createProduct(1L, "Box", 100D);
+        expected.setVersion(4L);
+        when(repository.updateIfVersion(eq(1L), eq("Box"), eq(100D), any(), eq(4L))).thenReturn(0);
+        when(repository.existsById(1L)).thenReturn(true);
+        HttpClientErrorException e = assertThrows(HttpClientErrorException.class, () -> service.updateProduct(expected));
+        assertEquals(HttpStatus.PRECONDITION_FAILED, e.getStatusCode());
+        verifyNoInteractions(changeOutbox, eventPublisher);
+    }
+
+    @Test
+    void testUpdateProductNotFound() {
+        when(repository.updateProduct(eq(1L), eq("Box"), eq(100D), any())).thenReturn(0);
+        HttpClientErrorException e = assertThrows(HttpClientErrorException.class, () -> service.updateProduct(product));
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+        verify(repository, never()).findVersionById(anyLong());
+        verifyNoInteractions(changeOutbox, eventPublisher);
+    }
+
+    @Test
+    void testUpdateProductWithoutVersionNeverConflicts() {
+        when(repository.updateProduct(eq(1L), eq("Box"), eq(100D), any())).thenReturn(1);
+        when(repository.findVersionById(1L)).thenReturn(Optional.of(7L));
+        Product updated = service.updateProduct(product);
+        assertEquals(7L, updated.getVersion());
+        verify(repository, never()).updateIfVersion(any(), any(), any(), any(), any());
+        verify(repository, never()).existsById(anyLong());
+        verify(eventPublisher, times(1)).publishEvent(ProductChangedEvent.saved(updated));
+    }
+
+    @Test
+    void testExistsProduct() {
+        when(repository.existsById(1L)).thenReturn(true);
+        assertTrue(service.existsProduct(1L));
+        assertFalse(service.existsProduct(2L));
+        verify(repository, never()).findById(anyLong());
+        verify(repository, never()).findProductById(anyLong());
+    }
+
+    @Test
+    void testExistsProductUsesCachedLookup() {
+        when(repository.findProductById(1L)).thenReturn(Optional.of(product));
+        service.findProductById(1L);
+        assertTrue(service.existsProduct(1L));
+        verify(repository, never()).existsById(anyLong());
+    }
+
+    @Test
+    void testFindProductByIdIsCached() {
+        when(repository.findProductById(1L)).thenReturn(Optional.of(product));
+        assertEquals(product, service.findProductById(1L).get());
+        assertEquals(product, service.findProductById(1L).get());
+        verify(repository, times(1)).findProductById(1L);
+        assertEquals(1, service.productCache.stats().hitCount());
+    }
+
+    @Test
+    void testFindProductByIdReadsRecentlyChangedProductOnPrimary() {
+        clearInvocations(transactionTemplate);
+        when(repository.findProductById(1L)).thenReturn(Optional.of(product));
+        service.findProductById(1L);
+        verify(transactionTemplate, never()).execute(any());
+
+        service.productCache.onProductChanged(ProductChangedEvent.saved(product));
+        service.catalogVersion.onProductChanged(ProductChangedEvent.saved(product));
+        assertEquals(product, service.findProductById(1L).get());
+        verify(transactionTemplate, times(1)).execute(any());
+
+        when(repository.findAllProducts()).thenReturn(productList);
+        service.findAllProducts();
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    void testFindProductByIdInvalidIsCached() {
+        when(repository.findProductById(2L)).thenReturn(Optional.empty());
+        assertFalse(service.findProductById(2L).isPresent());
+        assertFalse(service.findProductById(2L).isPresent());
+        verify(repository, times(1)).findProductById(2L);
+    }
+
     @Test
     void testSaveProductInvalid() {
+        Product newProduct = createProduct(null, "Box", 100D);
         when(repository.save(productDAO)).thenThrow(new IllegalArgumentException());
-        when(mapper.productToProductDAO(product)).thenReturn(productDAO);
-        assertThrows(IllegalArgumentException.class, () -> service.saveProduct(product));
+        when(mapper.productToProductDAO(newProduct)).thenReturn(productDAO);
+        assertThrows(IllegalArgumentException.class, () -> service.saveProduct(newProduct));
         verify(repository, times(1)).save(productDAO);
     }
 
     @Test
     void testSaveProductInvalid_Duplicate() {
         Product productToSave = createProduct(null, "Box", 100D);
-        when(repository.findAll()).thenReturn(productDAOList);
+        when(repository.existsByNameAndPrice("Box", 100D)).thenReturn(true);
         assertThrows(HttpClientErrorException.class, () -> service.saveProduct(productToSave));
         verify(repository, times(0)). save(productDAO);
+        verify(repository, never()).findAll();
+    }
+
+    @Test
+    void testHasNoMatchExcludesOwnId() {
+        when(repository.existsByNameAndPriceAndIdNot("Box", 100D, 1L)).thenReturn(false);
+        assertTrue(service.hasNoMatch(product));
+        verify(repository, times(1)).existsByNameAndPriceAndIdNot("Box", 100D, 1L);
+        verify(repository, never()).findAll();
+    }
+
+    @Test
+    void testHasNoMatchUsesMatchIndexWhenReady() {
+        when(matchIndex.isReady()).thenReturn(true);
+        when(matchIndex.hasMatch(product)).thenReturn(true);
+        assertFalse(service.hasNoMatch(product));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void testSaveProductPublishesChange() throws Exception {
+        Product newProduct = createProduct(null, "Box", 100D);
+        when(repository.save(productDAO)).thenReturn(productDAO);
+        when(mapper.productDAOToProduct(productDAO)).thenReturn(product);
+        when(mapper.productToProductDAO(newProduct)).thenReturn(productDAO);
+        service.saveProduct(newProduct);
+        verify(eventPublisher, times(1)).publishEvent(ProductChangedEvent.saved(product));
+    }
+
+    @Test
+    void testSaveProductAppendsToOutbox() throws Exception {
+        Product newProduct = createProduct(null, "Box", 100D);
+        when(repository.save(productDAO)).thenReturn(productDAO);
+        when(mapper.productDAOToProduct(productDAO)).thenReturn(product);
+        when(mapper.productToProductDAO(newProduct)).thenReturn(productDAO);
+        service.saveProduct(newProduct);
+        verify(changeOutbox, times(1)).append(List.of(ProductChangedEvent.saved(product)));
     }
 
     @Test
     void testDeleteProduct() {
-        service.deleteProduct(anyLong());
-        verify(repository, times(1)).deleteById(anyLong());
+        when(repository.deleteProductById(1L)).thenReturn(1);
+        assertTrue(service.deleteProduct(1L));
+        verify(repository, times(1)).deleteProductById(1L);
+        verify(repository, never()).findById(anyLong());
+        verify(repository, never()).deleteById(anyLong());
+    }
+
+    @Test
+    void testDeleteMissingProduct() {
+        when(repository.deleteProductById(2L)).thenReturn(0);
+        assertFalse(service.deleteProduct(2L));
+        verifyNoInteractions(eventPublisher, changeOutbox);
+    }
+
+    @Test
+    void testDeleteProductPublishesChange() {
+        when(repository.deleteProductById(1L)).thenReturn(1);
+        service.deleteProduct(1L);
+        verify(eventPublisher, times(1)).publishEvent(ProductChangedEvent.deleted(1L));
+        verify(changeOutbox, times(1)).append(List.of(ProductChangedEvent.deleted(1L)));
+    }
+
+    @Test
+    void testFindChangesAfter() {
+        List<ProductChange> changes = List.of(new ProductChange(3L, ProductChange.Type.DELETED, 1L, null, null));
+        when(changeOutbox.findContiguousChangesAfter(2L, 10)).thenReturn(changes);
+        assertEquals(changes, service.findChangesAfter(2L, 10));
     }
 
     @Test
     void testDeleteProductInvalid() {
-        doThrow(new IllegalArgumentException()).when(repository).deleteById(anyLong());
-        assertThrows(IllegalArgumentException.class, () -> service.deleteProduct(anyLong()));
+        when(repository.deleteProductById(null)).thenThrow(new IllegalArgumentException());
+        assertThrows(IllegalArgumentException.class, () -> service.deleteProduct(null));
+    }
+
+    @Test
+    void testSaveProducts() {
+        List<Product> products = List.of(
+                createProduct(null, "Box", 100D),
+                createProduct(null, "Bag", 50D),
+                createProduct(null, "Bag", 50D),
+                createProduct(null, "", 50D),
+                createProduct(null, "Cup", 10D));
+        when(repository.findByNameIn(anyCollection())).thenReturn(List.of(createProductDAO(7L, "Cup", 10D)));
+        when(mapper.productToProductDAO(any(Product.class))).thenAnswer(invocation -> {
+            Product source = invocation.getArgument(0);
+            return createProductDAO(null, source.getName(), source.getPrice());
+        });
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<ProductDAO> saved = invocation.getArgument(0);
+            saved.forEach(dao -> dao.setId((long) dao.getName().length()));
+            return saved;
+        });
+        when(mapper.productDAOToProduct(any(ProductDAO.class))).thenAnswer(invocation -> {
+            ProductDAO source = invocation.getArgument(0);
+            return createProduct(source.getId(), source.getName(), source.getPrice());
+        });
+
+        List<ProductBatchResult> results = service.saveProducts(products);
+
+        assertEquals(List.of(ProductBatchResult.Status.CREATED, ProductBatchResult.Status.CREATED,
+                        ProductBatchResult.Status.CONFLICT, ProductBatchResult.Status.INVALID,
+                        ProductBatchResult.Status.CONFLICT),
+                results.stream().map(ProductBatchResult::getStatus).collect(Collectors.toList()));
+        assertEquals(3L, results.get(0).getId());
+        verify(repository, times(1)).saveAll(anyList());
+        verify(repository, times(2)).findByNameIn(anyCollection());
+        verify(repository, never()).findAll();
+        verify(eventPublisher, times(2)).publishEvent(any(ProductChangedEvent.class));
+        verify(changeOutbox, times(1)).append(List.of(
+                ProductChangedEvent.saved(createProduct(3L, "Box", 100D)),
+                ProductChangedEvent.saved(createProduct(3L, "Bag", 50D))));
+    }
+
+    @Test
+    void testUpdateProducts() {
+        List<Product> products = List.of(
+                createProduct(1L, "Crate", 120D),
+                createProduct(2L, "Bag", 50D),
+                createProduct(null, "Cup", 10D));
+        when(repository.findAllById(anyList())).thenReturn(List.of(productDAO));
+        when(mapper.productDAOToProduct(productDAO)).thenReturn(product);
+
+        List<ProductBatchResult> results = service.updateProducts(products);
+
+        assertEquals(List.of(ProductBatchResult.Status.UPDATED, ProductBatchResult.Status.NOT_FOUND,
+                        ProductBatchResult.Status.INVALID),
+                results.stream().map(ProductBatchResult::getStatus).collect(Collectors.toList()));
+        assertEquals("Crate", productDAO.getName());
+        assertEquals(120D, productDAO.getPrice());
+        verify(eventPublisher, times(1)).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void testDeleteProducts() {
+        when(repository.findExistingIds(List.of(1L, 2L))).thenReturn(List.of(1L));
+
+        List<ProductBatchResult> results = service.deleteProducts(Arrays.asList(1L, 2L, null));
+
+        assertEquals(List.of(ProductBatchResult.Status.DELETED, ProductBatchResult.Status.NOT_FOUND,
+                        ProductBatchResult.Status.INVALID),
+                results.stream().map(ProductBatchResult::getStatus).collect(Collectors.toList()));
+        verify(repository, times(1)).deleteAllByIdInBatch(List.of(1L));
+        verify(eventPublisher, times(1)).publishEvent(ProductChangedEvent.deleted(1L));
+        verify(changeOutbox, times(1)).append(List.of(ProductChangedEvent.deleted(1L)));
     }
 
     private List<ProductDAO> createProductDAOList(ProductDAO productDAO) {
@@ -0,0 +1,128 @@
+package com.accenture.zonetwo.business.snapshot;
+
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.business.repository.ProductRepository;
+import com.accenture.zonetwo.model.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CatalogSnapshotTest {
+
+    private static final Instant UPDATED_AT = Instant.parse("2024-01-01T10:15:30.123456Z");
+
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    public void init() {
+        snapshot = snapshot(2);
+        snapshot.load();
+    }
+
+    @Test
+    void testLoad() {
+        assertTrue(snapshot.isReady());
+        assertEquals(List.of(1L, 2L, 4L), ids(snapshot.findAll()));
+    }
+
+    @Test
+    void testFindById() {
+        Product product = snapshot.findById(2L).get();
+        assertEquals("Blue bag", product.getName());
+        assertEquals(20D, product.getPrice());
+        assertEquals(3L, product.getVersion());
+        assertEquals(UPDATED_AT, product.getUpdatedAt());
+        assertNull(snapshot.findById(1L).get().getUpdatedAt());
+        assertTrue(snapshot.findById(3L).isEmpty());
+    }
+
+    @Test
+    void testPatchesChangesOverColumns() {
+        snapshot.onProductChanged(ProductChangedEvent.saved(new Product(3L, "Grün", 30D)));
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(snapshot.findAll()));
+        assertEquals("Grün", snapshot.findById(3L).get().getName());
+
+        snapshot = snapshot(10);
+        snapshot.load();
+        snapshot.onProductChanged(ProductChangedEvent.deleted(2L));
+        snapshot.onProductChanged(ProductChangedEvent.saved(new Product(4L, "Black bag", 40D)));
+        assertEquals(List.of(1L, 4L), ids(snapshot.findAll()));
+        assertTrue(snapshot.findById(2L).isEmpty());
+        assertEquals("Black bag", snapshot.findById(4L).get().getName());
+    }
+
+    @Test
+    void testCompactsAtThreshold() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        snapshot.bindTo(registry);
+        snapshot.onProductChanged(ProductChangedEvent.saved(new Product(5L, "Crate", 50D)));
+        assertEquals(3D, registry.get("product.snapshot.products").gauge().value());
+        assertEquals(1D, registry.get("product.snapshot.overlay").gauge().value());
+
+        snapshot.onProductChanged(ProductChangedEvent.deleted(1L));
+        assertEquals(3D, registry.get("product.snapshot.products").gauge().value());
+        assertEquals(0D, registry.get("product.snapshot.overlay").gauge().value());
+        assertEquals(List.of(2L, 4L, 5L), ids(snapshot.findAll()));
+        assertEquals("Crate", snapshot.findById(5L).get().getName());
+    }
+
+    @Test
+    void testIgnoresChangesOlderThanItsState() {
+        snapshot = snapshot(10);
+        snapshot.load();
+        snapshot.onProductChanged(ProductChangedEvent.saved(new Product(5L, "Crate", 50D, 3L, null)));
+        snapshot.onProductChanged(ProductChangedEvent.saved(new Product(5L, "Old crate", 40D, 2L, null)));
+        assertEquals("Crate", snapshot.findById(5L).get().getName());
+        assertEquals(3L, snapshot.findById(5L).get().getVersion());
+
+        snapshot.onProductChanged(ProductChangedEvent.saved(new Product(2L, "Old blue bag", 10D, 2L, null)));
+        assertEquals("Blue bag", snapshot.findById(2L).get().getName());
+        snapshot.onProductChanged(ProductChangedEvent.saved(new Product(2L, "Green bag", 30D, 4L, null)));
+        assertEquals("Green bag", snapshot.findById(2L).get().getName());
+
+        snapshot.onProductChanged(ProductChangedEvent.deleted(4L));
+        snapshot.onProductChanged(ProductChangedEvent.saved(new Product(4L, "Shoebox", 50D, 2L, null)));
+        assertEquals(List.of(1L, 2L, 5L), ids(snapshot.findAll()));
+    }
+
+    @Test
+    void testDisabledSnapshotIsNeverReady() {
+        CatalogSnapshot disabled = new CatalogSnapshot(false, 2);
+        disabled.load();
+        disabled.onProductChanged(ProductChangedEvent.saved(new Product(1L, "Box", 100D)));
+        assertFalse(disabled.isReady());
+        assertTrue(disabled.findAll().isEmpty());
+    }
+
+    @Test
+    void testColumnsRequireAscendingIds() {
+        CatalogColumns.Builder builder = CatalogColumns.builder(2).add(new Product(2L, "Box", 1D));
+        assertThrows(IllegalArgumentException.class, () -> builder.add(new Product(1L, "Bag", 1D)));
+    }
+
+    private static CatalogSnapshot snapshot(int compactionThreshold) {
+        CatalogSnapshot snapshot = new CatalogSnapshot(true, compactionThreshold);
+        snapshot.productRepository = mock(ProductRepository.class);
+        snapshot.transactionManager = mock(PlatformTransactionManager.class);
+        when(snapshot.productRepository.count()).thenReturn(3L);
+        when(snapshot.productRepository.streamAllProducts()).thenReturn(Stream.of(
+                new Product(1L, "Red box", 100D, 0L, null),
+                new Product(2L, "Blue bag", 20D, 3L, UPDATED_AT),
+                new Product(4L, "Shoebox", 50D, 1L, null)));
+        return snapshot;
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getId).collect(Collectors.toList());
+    }
+}
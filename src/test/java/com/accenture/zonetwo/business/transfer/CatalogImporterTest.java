@@ -0,0 +1,128 @@
+package com.accenture.zonetwo.business.transfer;
+
+import com.accenture.zonetwo.business.service.ProductService;
+import com.accenture.zonetwo.model.CatalogImportReport;
+import com.accenture.zonetwo.model.Product;
+import com.accenture.zonetwo.model.ProductBatchResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class CatalogImporterTest {
+
+    private CatalogImporter importer;
+    private List<List<Product>> savedChunks;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void init() {
+        importer = new CatalogImporter();
+        importer.productService = mock(ProductService.class);
+        importer.objectMapper = new ObjectMapper();
+        importer.chunkSize = 2;
+        importer.queueCapacity = 1;
+        savedChunks = new ArrayList<>();
+        when(importer.productService.saveProducts(any(List.class))).thenAnswer(invocation -> {
+            List<Product> products = new ArrayList<>(invocation.<List<Product>>getArgument(0));
+            savedChunks.add(products);
+            List<ProductBatchResult> results = new ArrayList<>();
+            for (int i = 0; i < products.size(); i++) {
+                Product product = products.get(i);
+                ProductBatchResult.Status status = product.getPrice() == null ? ProductBatchResult.Status.INVALID
+                        : product.getName().equals("Taken") ? ProductBatchResult.Status.CONFLICT
+                        : ProductBatchResult.Status.CREATED;
+                results.add(new ProductBatchResult(i, null, status));
+            }
+            return results;
+        });
+    }
+
+    @Test
+    void testImportsCsvInChunks() throws IOException {
+        List<Long> progress = new ArrayList<>();
+        CatalogImportReport report = importer.importFrom(lines("﻿id,price,name\n7,1,Box\n8,2,Taken\n\n9,,Bag\n10,4,Crate\n11,5,Tin"),
+                CatalogFormat.CSV, running -> progress.add(running.getRecords()));
+
+        assertEquals(List.of(2L, 4L, 5L), progress);
+        assertEquals(5, report.getRecords());
+        assertEquals(3, report.getCreated());
+        assertEquals(1, report.getConflicts());
+        assertEquals(1, report.getInvalid());
+        assertEquals(List.of("line 5: name and price are required"), report.getErrors());
+        assertEquals(List.of("Box", "Taken", "Bag", "Crate", "Tin"), savedChunks.stream().flatMap(List::stream)
+                .map(Product::getName).collect(Collectors.toList()));
+        assertTrue(savedChunks.stream().flatMap(List::stream).allMatch(product -> product.getId() == null));
+    }
+
+    @Test
+    void testImportsNdjsonAndReportsUnparsableLines() throws IOException {
+        CatalogImportReport report = importer.importFrom(lines("{\"id\":3,\"name\":\"Box\",\"price\":1.5}\nnot json\nnull\n"),
+                CatalogFormat.NDJSON, running -> { });
+
+        assertEquals(3, report.getRecords());
+        assertEquals(1, report.getCreated());
+        assertEquals(2, report.getInvalid());
+        assertTrue(report.getErrors().get(0).startsWith("line 2: "));
+        assertEquals("line 3: not a product", report.getErrors().get(1));
+        assertEquals(List.of(List.of(new Product(null, "Box", 1.5D))), savedChunks);
+    }
+
+    @Test
+    void testReportsLinesOverMaximumLength() throws IOException {
+        String tooLong = "x".repeat(LineReader.MAX_LINE_LENGTH + 1);
+        CatalogImportReport report = importer.importFrom(lines("name,price\nBox,1\n" + tooLong + ",2\r\nBag,3\r\n"),
+                CatalogFormat.CSV, running -> { });
+
+        assertEquals(3, report.getRecords());
+        assertEquals(2, report.getCreated());
+        assertEquals(List.of("line 3: line is longer than " + LineReader.MAX_LINE_LENGTH + " characters"), report.getErrors());
+        assertEquals(List.of("Box", "Bag"), savedChunks.stream().flatMap(List::stream)
+                .map(Product::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testReadsLinesEndedByAnyTerminator() throws IOException {
+        try (LineReader reader = lines("a\r\nb\rc\n\r\nd")) {
+            assertEquals("a", reader.readLine());
+            assertEquals("b", reader.readLine());
+            assertEquals("c", reader.readLine());
+            assertEquals("", reader.readLine());
+            assertEquals("d", reader.readLine());
+            assertNull(reader.readLine());
+        }
+    }
+
+    @Test
+    void testRejectsCsvWithoutRequiredColumns() {
+        assertThrows(IllegalArgumentException.class,
+                () -> importer.importFrom(lines("id,name\n1,Box"), CatalogFormat.CSV, running -> { }));
+        verifyNoInteractions(importer.productService);
+    }
+
+    @Test
+    void testStopsParsingWhenSavingFails() {
+        when(importer.productService.saveProducts(any())).thenThrow(new IllegalStateException("Database is down"));
+        StringBuilder csv = new StringBuilder("name,price\n");
+        for (int i = 0; i < 1000; i++) {
+            csv.append("Box ").append(i).append(",1\n");
+        }
+        assertThrows(IllegalStateException.class,
+                () -> importer.importFrom(lines(csv.toString()), CatalogFormat.CSV, running -> { }));
+        verify(importer.productService, times(1)).saveProducts(any());
+    }
+
+    private static LineReader lines(String content) {
+        return LineReader.of(new BufferedReader(new StringReader(content)));
+    }
+}
@@ -0,0 +1,74 @@
+package com.accenture.zonetwo.business.transfer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedFileLineReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReadsLinesAcrossWindows() throws IOException {
+        Path file = write("name,price\r\nBöx,1\n\nLonger than one window,2");
+        for (long windowBytes : new long[]{1, 3, 7, 1024}) {
+            assertEquals(List.of("name,price", "Böx,1", "", "Longer than one window,2"), readAll(file, windowBytes));
+        }
+    }
+
+    @Test
+    void testTrailingNewlineEndsLastLine() throws IOException {
+        assertEquals(List.of("a", "b"), readAll(write("a\nb\n"), 2));
+        assertEquals(List.of(), readAll(write(""), 2));
+    }
+
+    @Test
+    void testReportsPosition() throws IOException {
+        Path file = write("ab\ncd\n");
+        try (MappedFileLineReader reader = new MappedFileLineReader(file, 4)) {
+            reader.readLine();
+            assertEquals(3, reader.position());
+            reader.readLine();
+            assertNull(reader.readLine());
+            assertEquals(reader.size(), reader.position());
+        }
+    }
+
+    @Test
+    void testSkipsLinesOverMaximumLength() throws IOException {
+        String longest = "x".repeat(LineReader.MAX_LINE_LENGTH);
+        Path file = write("a\n" + longest + "y\n" + longest + "\nb");
+        for (long windowBytes : new long[]{7, 1024, MappedFileLineReader.DEFAULT_WINDOW_BYTES}) {
+            try (MappedFileLineReader reader = new MappedFileLineReader(file, windowBytes)) {
+                assertEquals("a", reader.readLine());
+                assertThrows(LineTooLongException.class, reader::readLine);
+                assertEquals(longest, reader.readLine());
+                assertEquals("b", reader.readLine());
+                assertNull(reader.readLine());
+            }
+        }
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.write(Files.createTempFile(directory, "catalog", ".csv"), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> readAll(Path file, long windowBytes) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (MappedFileLineReader reader = new MappedFileLineReader(file, windowBytes)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
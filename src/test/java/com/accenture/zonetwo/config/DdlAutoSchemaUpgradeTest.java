@@ -0,0 +1,74 @@
+package com.accenture.zonetwo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A catalog created by ddl-auto before the product version, timestamps and change log existed.
+ */
+public class DdlAutoSchemaUpgradeTest {
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private CatalogSchemaCheck schemaCheck;
+
+    @BeforeEach
+    public void init() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:ddl-auto-" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        schemaCheck = new CatalogSchemaCheck();
+        schemaCheck.jdbcTemplate = jdbcTemplate;
+    }
+
+    @AfterEach
+    public void close() {
+        dataSource.close();
+    }
+
+    @Test
+    void testBaselinedCatalogIsBroughtUpToDate() {
+        createLegacyCatalog();
+        assertThrows(IllegalStateException.class, schemaCheck::check);
+
+        migrate(true);
+
+        assertDoesNotThrow(schemaCheck::check);
+        assertEquals(0L, jdbcTemplate.queryForObject("select version from product where id = 1", Long.class));
+        assertEquals(170L, jdbcTemplate.queryForObject("select next value for product_seq", Long.class));
+        jdbcTemplate.update("insert into product_change (type, product_id) values ('DELETED', 1)");
+    }
+
+    @Test
+    void testDoesNothingOnCatalogCreatedByMigrations() {
+        migrate(false);
+
+        assertDoesNotThrow(schemaCheck::check);
+        assertEquals(1L, jdbcTemplate.queryForObject("select next value for product_seq", Long.class));
+    }
+
+    private void createLegacyCatalog() {
+        jdbcTemplate.execute("create table product (id bigint not null auto_increment, name varchar(255),"
+                + " price double precision, primary key (id))");
+        for (int i = 0; i < 120; i++) {
+            jdbcTemplate.update("insert into product (name, price) values (?, ?)", "Product " + i, 1.99);
+        }
+    }
+
+    private void migrate(boolean baseline) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/h2")
+                .javaMigrations(new DdlAutoSchemaUpgrade())
+                .baselineOnMigrate(baseline)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+    }
+}
@@ -0,0 +1,76 @@
+package com.accenture.zonetwo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A catalog created while product ids were auto-increment, in an in-memory database standing in for MySQL.
+ */
+public class ProductSequenceAlignmentTest {
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void init() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:legacy-" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table product (id bigint not null auto_increment, name varchar(255),"
+                + " price double precision, primary key (id))");
+        for (int i = 0; i < 120; i++) {
+            jdbcTemplate.update("insert into product (name, price) values (?, ?)", "Product " + i, 1.99);
+        }
+    }
+
+    @AfterEach
+    public void close() {
+        dataSource.close();
+    }
+
+    @Test
+    void testMovesSequenceCreatedByDdlAutoPastIdsInUse() {
+        jdbcTemplate.execute("create table product_seq (next_val bigint)");
+        jdbcTemplate.update("insert into product_seq values (1)");
+        ProductSequenceAlignment alignment = new ProductSequenceAlignment();
+        alignment.jdbcTemplate = jdbcTemplate;
+
+        alignment.align();
+        assertEquals(170L, nextVal());
+        jdbcTemplate.update("update product_seq set next_val = 220");
+        alignment.align();
+        assertEquals(220L, nextVal());
+    }
+
+    @Test
+    void testIgnoresNativeSequence() {
+        jdbcTemplate.execute("create sequence product_seq start with 1 increment by 50");
+        ProductSequenceAlignment alignment = new ProductSequenceAlignment();
+        alignment.jdbcTemplate = jdbcTemplate;
+
+        assertDoesNotThrow(alignment::align);
+    }
+
+    @Test
+    void testMigrationCreatesSequencePastIdsInUse() {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/mysql")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .target("2")
+                .load()
+                .migrate();
+        assertEquals(170L, nextVal());
+    }
+
+    private Long nextVal() {
+        return jdbcTemplate.queryForObject("select next_val from product_seq", Long.class);
+    }
+}
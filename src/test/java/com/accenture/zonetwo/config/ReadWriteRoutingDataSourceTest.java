@@ -0,0 +1,119 @@
+package com.accenture.zonetwo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routing between separate in-memory databases that stand in for the primary and two replicas,
+ * each of them holding its own name.
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private final List<HikariDataSource> databases = new ArrayList<>();
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    public void close() {
+        databases.forEach(HikariDataSource::close);
+    }
+
+    @Test
+    void testReadWriteTransactionsUsePrimary() {
+        route(Duration.ZERO);
+        transactionTemplate.setReadOnly(false);
+        assertEquals("primary", transactionTemplate.execute(status -> databaseName()));
+        assertEquals("primary", databaseName());
+    }
+
+    @Test
+    void testReadOnlyTransactionsUseReplicasRoundRobin() {
+        route(Duration.ZERO);
+        transactionTemplate.setReadOnly(true);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            names.add(transactionTemplate.execute(status -> databaseName()));
+        }
+        assertEquals(List.of("replica-0", "replica-1", "replica-0", "replica-1"), names);
+    }
+
+    @Test
+    void testReadOnlyTransactionsUsePrimaryWithinLagToleranceOfWrite() {
+        route(Duration.ofMinutes(1));
+        transactionTemplate.setReadOnly(true);
+        assertEquals("replica-0", transactionTemplate.execute(status -> databaseName()));
+
+        transactionTemplate.setReadOnly(false);
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("update database_name set name = name"));
+        transactionTemplate.setReadOnly(true);
+        assertEquals("primary", transactionTemplate.execute(status -> databaseName()));
+    }
+
+    @Test
+    void testOtherThreadsReadReplicasDuringSteadyWrites() throws Exception {
+        route(Duration.ofMinutes(1));
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                writer.submit(() -> new TransactionTemplate(transactionTemplate.getTransactionManager())
+                        .executeWithoutResult(status -> jdbcTemplate.update("update database_name set name = name")))
+                        .get();
+                transactionTemplate.setReadOnly(true);
+                names.add(transactionTemplate.execute(status -> databaseName()));
+            }
+            assertEquals(List.of("replica-0", "replica-1", "replica-0", "replica-1"), names);
+            assertEquals("primary", writer.submit(() -> {
+                TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+                readOnly.setReadOnly(true);
+                return readOnly.execute(status -> databaseName());
+            }).get());
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    void testRequiresReplica() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ReadWriteRoutingDataSource(database("primary"), List.of(), Duration.ZERO));
+    }
+
+    private void route(Duration lagTolerance) {
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(database("primary"),
+                List.of(database("replica-0"), database("replica-1")), lagTolerance);
+        routingDataSource.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    private String databaseName() {
+        return jdbcTemplate.queryForObject("select name from database_name", String.class);
+    }
+
+    private DataSource database(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(2);
+        databases.add(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table database_name (name varchar(20))");
+        jdbcTemplate.update("insert into database_name values (?)", name);
+        return dataSource;
+    }
+}
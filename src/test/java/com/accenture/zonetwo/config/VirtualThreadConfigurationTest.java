@@ -0,0 +1,64 @@
+package com.accenture.zonetwo.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Both paths depend on the runtime, so each test only runs on the runtimes it covers.
+ */
+public class VirtualThreadConfigurationTest {
+    private static final int VIRTUAL_THREADS_FEATURE_VERSION = 21;
+
+    @Test
+    void testKeepsPlatformThreadsBeforeJava21() {
+        assumeTrue(Runtime.version().feature() < VIRTUAL_THREADS_FEATURE_VERSION);
+        VirtualThreadConfiguration configuration = new VirtualThreadConfiguration();
+        ProtocolHandler protocolHandler = mock(ProtocolHandler.class);
+        AsyncSupportConfigurer asyncSupportConfigurer = mock(AsyncSupportConfigurer.class);
+
+        customize(configuration, protocolHandler);
+        configuration.configureAsyncSupport(asyncSupportConfigurer);
+        verify(protocolHandler, never()).setExecutor(any());
+        verify(asyncSupportConfigurer, never()).setTaskExecutor(any());
+        configuration.shutdown();
+    }
+
+    @Test
+    void testRunsRequestsOnVirtualThreadsFromJava21() throws Exception {
+        assumeTrue(Runtime.version().feature() >= VIRTUAL_THREADS_FEATURE_VERSION);
+        VirtualThreadConfiguration configuration = new VirtualThreadConfiguration();
+        ProtocolHandler protocolHandler = mock(ProtocolHandler.class);
+        AsyncSupportConfigurer asyncSupportConfigurer = mock(AsyncSupportConfigurer.class);
+
+        customize(configuration, protocolHandler);
+        configuration.configureAsyncSupport(asyncSupportConfigurer);
+        verify(asyncSupportConfigurer).setTaskExecutor(any());
+        ArgumentCaptor<Executor> executor = ArgumentCaptor.forClass(Executor.class);
+        verify(protocolHandler).setExecutor(executor.capture());
+        CompletableFuture<Thread> handlerThread = new CompletableFuture<>();
+        executor.getValue().execute(() -> handlerThread.complete(Thread.currentThread()));
+        assertEquals(Boolean.TRUE, Thread.class.getMethod("isVirtual").invoke(handlerThread.get(5, TimeUnit.SECONDS)));
+
+        configuration.shutdown();
+        assertThrows(RejectedExecutionException.class, () -> executor.getValue().execute(() -> { }));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void customize(VirtualThreadConfiguration configuration, ProtocolHandler protocolHandler) {
+        ((TomcatProtocolHandlerCustomizer<ProtocolHandler>) configuration.virtualThreadProtocolHandlerCustomizer())
+                .customize(protocolHandler);
+    }
+}
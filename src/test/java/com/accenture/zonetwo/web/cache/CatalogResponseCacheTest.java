@@ -0,0 +1,81 @@
+package com.accenture.zonetwo.web.cache;
+
+import com.accenture.zonetwo.business.cache.CatalogVersion;
+import com.accenture.zonetwo.business.event.ProductChangedEvent;
+import com.accenture.zonetwo.web.codec.WireFormat;
+import com.accenture.zonetwo.web.codec.WireFormatMappers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogResponseCacheTest {
+
+    private CatalogResponseCache responseCache;
+    private CatalogVersion catalogVersion;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    public void init() {
+        responseCache = new CatalogResponseCache(DataSize.ofMegabytes(1), false);
+        responseCache.wireFormatMappers = new WireFormatMappers(new ObjectMapper(), new Jackson2ObjectMapperBuilder());
+        catalogVersion = new CatalogVersion();
+        responseCache.catalogVersion = catalogVersion;
+    }
+
+    @Test
+    void testEncodesOncePerVersion() {
+        responseCache.get("all", WireFormat.JSON, this::load);
+        responseCache.get("all", WireFormat.JSON, this::load);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testDoesNotKeepResponseLoadedAcrossWrite() {
+        responseCache.get("all", WireFormat.JSON, () -> {
+            catalogVersion.onProductChanged(ProductChangedEvent.deleted(1L));
+            return load();
+        });
+        responseCache.get("all", WireFormat.JSON, this::load);
+        responseCache.get("all", WireFormat.JSON, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testSlowLoadDoesNotBlockOtherReadsOfTheKey() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<?> slow = CompletableFuture.runAsync(() -> responseCache.get("all", WireFormat.JSON, () -> {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return load();
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        try {
+            CompletableFuture<Optional<CatalogResponseCache.EncodedResponse>> other = CompletableFuture.supplyAsync(() -> responseCache.get("all", WireFormat.JSON, this::load));
+            assertTrue(other.get(5, TimeUnit.SECONDS).isPresent());
+        } finally {
+            release.countDown();
+        }
+        slow.get(5, TimeUnit.SECONDS);
+    }
+
+    private Object load() {
+        loads.incrementAndGet();
+        return List.of("Box", "Bag");
+    }
+}
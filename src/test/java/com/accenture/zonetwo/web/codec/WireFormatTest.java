@@ -0,0 +1,24 @@
+package com.accenture.zonetwo.web.codec;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WireFormatTest {
+
+    @Test
+    void testNegotiatesSmileOnlyWhenAskedFor() {
+        assertEquals(WireFormat.SMILE, WireFormat.negotiate("application/x-jackson-smile"));
+        assertEquals(WireFormat.SMILE, WireFormat.negotiate("application/json;q=0.5, application/x-jackson-smile"));
+        assertEquals(WireFormat.JSON, WireFormat.negotiate("application/json, application/x-jackson-smile"));
+        assertEquals(WireFormat.JSON, WireFormat.negotiate("application/x-jackson-smile;q=0, */*"));
+    }
+
+    @Test
+    void testDefaultsToJson() {
+        assertEquals(WireFormat.JSON, WireFormat.negotiate(null));
+        assertEquals(WireFormat.JSON, WireFormat.negotiate("*/*"));
+        assertEquals(WireFormat.JSON, WireFormat.negotiate("text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8"));
+        assertEquals(WireFormat.JSON, WireFormat.negotiate("not a media type"));
+    }
+}
@@ -1,28 +1,61 @@
 package com.accenture.zonetwo.web.controller;
 
+import com.accenture.zonetwo.business.cache.CatalogVersion;
+import com.accenture.zonetwo.business.outbox.ProductChangeFeed;
 import com.accenture.zonetwo.business.service.ProductService;
+import com.accenture.zonetwo.business.transfer.CatalogExporter;
+import com.accenture.zonetwo.business.transfer.CatalogImporter;
+import com.accenture.zonetwo.model.PriceHistogram;
+import com.accenture.zonetwo.model.PriceStatistics;
 import com.accenture.zonetwo.model.Product;
+import com.accenture.zonetwo.model.ProductBatchResult;
+import com.accenture.zonetwo.model.ProductChange;
+import com.accenture.zonetwo.model.ProductSearchCriteria;
+import com.accenture.zonetwo.web.cache.CatalogResponseCache;
+import com.accenture.zonetwo.web.codec.WireFormat;
+import com.accenture.zonetwo.web.codec.WireFormatMappers;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.web.client.HttpClientErrorException;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ProductController.class)
+@Import({CatalogResponseCache.class, WireFormatMappers.class, CatalogImporter.class, CatalogExporter.class})
 public class ProductControllerTest {
 
     private String URL = "/product";
@@ -35,6 +68,23 @@ public class ProductControllerTest {
     @MockBean
     private ProductService service;
 
+    @MockBean
+    private CatalogVersion catalogVersion;
+
+    @MockBean
+    private ProductChangeFeed changeFeed;
+
+    @Autowired
+    private CatalogResponseCache responseCache;
+
+    @Autowired
+    private WireFormatMappers wireFormatMappers;
+
+    @BeforeEach
+    public void init() {
+        responseCache.invalidateAll();
+    }
+
     @Test
     void testFindAllProducts() throws Exception {
         List<Product> productList = createProductList();
@@ -52,6 +102,86 @@ public class ProductControllerTest {
         verify(service, times(1)).findAllProducts();
     }
 
+    @Test
+    void testFindAllProductsAsSmile() throws Exception {
+        when(service.findAllProducts()).thenReturn(createProductList());
+        when(catalogVersion.etag()).thenReturn("abc-1");
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get(URL).accept(WireFormat.SMILE.getMediaType()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(WireFormat.SMILE.getMediaType()))
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"abc-1-smile\""))
+                .andReturn();
+        List<Product> products = wireFormatMappers.get(WireFormat.SMILE)
+                .readValue(result.getResponse().getContentAsByteArray(), new TypeReference<List<Product>>() {});
+        assertEquals(createProductList(), products);
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL).header(HttpHeaders.ACCEPT, "text/html,*/*;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    void testFindProductByIdAsSmile() throws Exception {
+        when(service.findProductById(1L)).thenReturn(Optional.of(createProduct()));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get(URL + "/1").accept(WireFormat.SMILE.getMediaType()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(WireFormat.SMILE.getMediaType()))
+                .andReturn();
+        assertEquals(createProduct(), wireFormatMappers.get(WireFormat.SMILE)
+                .readValue(result.getResponse().getContentAsByteArray(), Product.class));
+    }
+
+    @Test
+    void testFindAllProductsIsEncodedOncePerCatalogVersion() throws Exception {
+        when(service.findAllProducts()).thenReturn(createProductList());
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL)).andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get(URL))
+                .andExpect(MockMvcResultMatchers.jsonPath("$", hasSize(2)))
+                .andExpect(status().isOk());
+        verify(service, times(1)).findAllProducts();
+
+        when(catalogVersion.get()).thenReturn(1L);
+        mockMvc.perform(MockMvcRequestBuilders.get(URL)).andExpect(status().isOk());
+        verify(service, times(2)).findAllProducts();
+    }
+
+    @Test
+    void testFindAllProductsGzipped() throws Exception {
+        when(service.findAllProducts()).thenReturn(createProductList());
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get(URL)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8"))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(containsString(HttpHeaders.ACCEPT_ENCODING))))
+                .andExpect(status().isOk())
+                .andReturn();
+        String identity = mockMvc.perform(MockMvcRequestBuilders.get(URL))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getContentAsString();
+        try (GZIPInputStream body = new GZIPInputStream(new ByteArrayInputStream(mvcResult.getResponse().getContentAsByteArray()))) {
+            assertEquals(identity, new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testAcceptsGzip() {
+        assertTrue(ProductController.acceptsGzip("gzip, deflate"));
+        assertTrue(ProductController.acceptsGzip("*"));
+        assertFalse(ProductController.acceptsGzip(null));
+        assertFalse(ProductController.acceptsGzip("identity"));
+        assertFalse(ProductController.acceptsGzip("gzip;q=0, br"));
+        assertFalse(ProductController.acceptsGzip("gzip; q=0.00"));
+        assertFalse(ProductController.acceptsGzip("gzip;q=0, *"));
+        assertFalse(ProductController.acceptsGzip("*, gzip;q=0"));
+        assertTrue(ProductController.acceptsGzip("*;q=0, gzip"));
+        assertFalse(ProductController.acceptsGzip("*;q=0"));
+    }
+
     @Test
     void testFindAllProductsInvalid() throws Exception {
         List<Product> productList = createProductList();
@@ -69,6 +199,250 @@ public class ProductControllerTest {
         verify(service, times(1)).findAllProducts();
     }
 
+    @Test
+    void testFindAllProductsHasETag() throws Exception {
+        when(catalogVersion.etag()).thenReturn("abc-1");
+        when(service.findAllProducts()).thenReturn(createProductList());
+
+        ResultActions mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get(URL))
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"abc-1\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testFindAllProductsNotModified() throws Exception {
+        when(catalogVersion.etag()).thenReturn("abc-1");
+
+        ResultActions mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get(URL)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"abc-1\""))
+                .andExpect(content().string(""))
+                .andExpect(status().isNotModified());
+        verify(service, times(0)).findAllProducts();
+    }
+
+    @Test
+    void testFindProductPage() throws Exception {
+        List<Product> productList = createProductList();
+
+        when(service.findProductsAfter(0L, 2)).thenReturn(productList);
+
+        ResultActions mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get(URL + "/page")
+                        .param("after", "0")
+                        .param("size", "2"))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.products", hasSize(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextAfter").value(1L))
+                .andExpect(status().isOk());
+        verify(service, times(1)).findProductsAfter(0L, 2);
+    }
+
+    @Test
+    void testFindProductPageInvalid() throws Exception {
+        ResultActions mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get(URL + "/page")
+                        .param("size", "0"))
+                .andExpect(status().isBadRequest());
+        verify(service, times(0)).findProductsAfter(anyLong(), anyInt());
+    }
+
+    @Test
+    void testSearchProducts() throws Exception {
+        ProductSearchCriteria criteria = new ProductSearchCriteria("bo", ProductSearchCriteria.Match.CONTAINS, 10D, 20D, 5);
+        when(service.searchProducts(criteria)).thenReturn(createProductList());
+
+        ResultActions mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get(URL + "/search")
+                        .param("name", "bo")
+                        .param("match", "CONTAINS")
+                        .param("minPrice", "10")
+                        .param("maxPrice", "20")
+                        .param("limit", "5"))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$", hasSize(2)))
+                .andExpect(status().isOk());
+        verify(service, times(1)).searchProducts(criteria);
+    }
+
+    @Test
+    void testSearchProductsInvalid() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get(URL + "/search"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.get(URL + "/search").param("name", "box").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.get(URL + "/search").param("minPrice", "20").param("maxPrice", "10"))
+                .andExpect(status().isBadRequest());
+        verify(service, times(0)).searchProducts(any());
+    }
+
+    @Test
+    void testGetPriceStatistics() throws Exception {
+        when(service.getPriceStatistics()).thenReturn(new PriceStatistics(2L, 10D, 30D, 40D));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.count").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.min").value(10D))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.max").value(30D))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.average").value(20D));
+    }
+
+    @Test
+    void testGetPriceHistogram() throws Exception {
+        when(service.getPriceHistogram(List.of(10D, 20D))).thenReturn(PriceHistogram.of(List.of(10D, 20D), new long[]{1, 0, 2}));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL + "/stats/histogram").param("bounds", "10,20"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.buckets", hasSize(3)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.buckets[0].from").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.buckets[0].to").value(10D))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.buckets[2].from").value(20D))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.buckets[2].count").value(2));
+    }
+
+    @Test
+    void testGetPriceHistogramInvalidBounds() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get(URL + "/stats/histogram").param("bounds", "20,10"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.get(URL + "/stats/histogram").param("bounds", "10,10"))
+                .andExpect(status().isBadRequest());
+        verify(service, never()).getPriceHistogram(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStreamChanges() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<ProductChange> consumer = invocation.getArgument(1);
+            consumer.accept(new ProductChange(8L, ProductChange.Type.SAVED, 1L, new Product(1L, "Box", 100D), null));
+            consumer.accept(new ProductChange(9L, ProductChange.Type.DELETED, 2L, null, null));
+            return mock(ProductChangeFeed.Subscription.class);
+        }).when(changeFeed).subscribe(eq(7L), any(Consumer.class), any(Runnable.class));
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get(URL + "/changes")
+                        .param("after", "3")
+                        .header("Last-Event-ID", "7")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String events = mvcResult.getResponse().getContentAsString();
+        assertTrue(events.contains("id:8\nevent:saved\ndata:{\"sequence\":8,\"type\":\"SAVED\",\"productId\":1"));
+        assertTrue(events.contains("id:9\nevent:deleted\n"));
+    }
+
+    @Test
+    void testFindChanges() throws Exception {
+        when(service.findChangesAfter(5L, 2)).thenReturn(List.of(
+                new ProductChange(6L, ProductChange.Type.DELETED, 1L, null, null)));
+
+        ResultActions mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get(URL + "/changes")
+                        .param("after", "5")
+                        .param("size", "2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$", hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].sequence").value(6L))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].type").value("DELETED"))
+                .andExpect(status().isOk());
+        verify(service, times(1)).findChangesAfter(5L, 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStreamProductsAsNdjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Product> consumer = invocation.getArgument(0);
+            createProductList().forEach(consumer);
+            return null;
+        }).when(service).streamAllProducts(any(Consumer.class));
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get(URL + "/stream")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"id\":1,\"name\":\"Box\",\"price\":100.0}\n" +
+                        "{\"id\":1,\"name\":\"Box\",\"price\":100.0}\n"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStreamProductsAsJsonArray() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Product> consumer = invocation.getArgument(0);
+            createProductList().forEach(consumer);
+            return null;
+        }).when(service).streamAllProducts(any(Consumer.class));
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get(URL + "/stream")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", hasSize(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].name").value("Box"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStreamProductsAsCsv() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Product> consumer = invocation.getArgument(0);
+            consumer.accept(createProduct());
+            consumer.accept(new Product(2L, "Box, \"large\"", 150D));
+            return null;
+        }).when(service).streamAllProducts(any(Consumer.class));
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get(URL + "/stream")
+                        .accept("text/csv"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(content().string("id,name,price\r\n1,Box,100.0\r\n2,\"Box, \"\"large\"\"\",150.0\r\n"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testImportProductsFromCsv() throws Exception {
+        when(service.saveProducts(any(List.class))).thenAnswer(invocation -> {
+            List<Product> products = invocation.getArgument(0);
+            List<ProductBatchResult> results = new ArrayList<>();
+            for (int i = 0; i < products.size(); i++) {
+                results.add(new ProductBatchResult(i, i + 10L, ProductBatchResult.Status.CREATED));
+            }
+            return results;
+        });
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post(URL + "/import")
+                        .contentType("text/csv")
+                        .content("name,price\nBox,100\n\"Bag\nlarge\",20.5\nCrate,cheap\n"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.records").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.created").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.invalid").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors[0]").value("line 5: price is not a number: cheap"));
+        verify(service, times(1)).saveProducts(List.of(new Product(null, "Box", 100D), new Product(null, "Bag\nlarge", 20.5D)));
+    }
+
+    @Test
+    void testImportProductsWithoutPriceColumn() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post(URL + "/import")
+                        .contentType("text/csv")
+                        .content("name\nBox\n"))
+                .andExpect(status().isBadRequest());
+        verify(service, times(0)).saveProducts(any());
+    }
+
     @Test
     void testFindProductById() throws Exception {
         Optional<Product> product = Optional.of(createProduct());
@@ -86,6 +460,58 @@ public class ProductControllerTest {
         verify(service, times(1)).findProductById(anyLong());
     }
 
+    @Test
+    void testFindProductByIdHasETagAndLastModified() throws Exception {
+        Product product = createProduct();
+        product.setVersion(3L);
+        product.setUpdatedAt(Instant.parse("2026-01-02T03:04:05.000006Z"));
+
+        when(service.findProductById(1L)).thenReturn(Optional.of(product));
+
+        ResultActions mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get(URL + "/1"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-3\""))
+                .andExpect(header().string(HttpHeaders.LAST_MODIFIED, "Fri, 02 Jan 2026 03:04:05 GMT"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.updatedAt").doesNotExist())
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testFindProductByIdNotModified() throws Exception {
+        Product product = createProduct();
+        product.setVersion(3L);
+        product.setUpdatedAt(Instant.parse("2026-01-02T03:04:05.000006Z"));
+
+        when(service.findProductById(1L)).thenReturn(Optional.of(product));
+
+        ResultActions mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get(URL + "/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"1-3\""))
+                .andExpect(content().string(""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void testFindProductByIdETagNamesFormat() throws Exception {
+        Product product = createProduct();
+        product.setVersion(3L);
+
+        when(service.findProductById(1L)).thenReturn(Optional.of(product));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL + "/1").accept(WireFormat.SMILE.getMediaType()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(WireFormat.SMILE.getMediaType()))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-3-smile\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+        mockMvc.perform(MockMvcRequestBuilders.get(URL + "/1").accept(WireFormat.SMILE.getMediaType())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"1-3\""))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(WireFormat.SMILE.getMediaType()));
+        mockMvc.perform(MockMvcRequestBuilders.get(URL + "/1").header(HttpHeaders.IF_NONE_MATCH, "\"1-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+    }
+
     @Test
     void testFindProductByIdInvalid() throws Exception {
         Optional<Product> product = Optional.of(createProduct());
@@ -134,14 +560,14 @@ public class ProductControllerTest {
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().is4xxClientError());
 
-        verify(service, times(0)).saveProduct(product);
+        verify(service, times(0)).updateProduct(product);
     }
 
     @Test
     void testUpdateProductById() throws Exception {
         Product product = createProduct();
 
-        when(service.findProductById(product.getId())).thenReturn(Optional.of(product));
+        when(service.updateProduct(product)).thenReturn(updated(product));
 
         ResultActions mvcResult = mockMvc.perform(MockMvcRequestBuilders
                         .put(URL + "/1")
@@ -149,9 +575,84 @@ public class ProductControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(1L))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.version").value(1L))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-1\""))
                 .andExpect(status().isCreated());
 
-        verify(service, times(1)).saveProduct(product);
+        verify(service, times(1)).updateProduct(product);
+    }
+
+    @Test
+    void testUpdateProductByIdIfMatch() throws Exception {
+        Product product = createProduct();
+        Product expected = createProduct();
+        expected.setVersion(4L);
+
+        when(service.updateProduct(expected)).thenReturn(updated(expected));
+
+        ResultActions mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                        .put(URL + "/1")
+                        .header(HttpHeaders.IF_MATCH, "\"1-4\"")
+                        .content(asJsonString(product))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-5\""))
+                .andExpect(status().isCreated());
+
+        verify(service, times(1)).updateProduct(expected);
+    }
+
+    @Test
+    void testUpdateProductByIdIfMatchSmileETag() throws Exception {
+        Product expected = createProduct();
+        expected.setVersion(4L);
+
+        when(service.updateProduct(expected)).thenReturn(updated(expected));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put(URL + "/1")
+                        .header(HttpHeaders.IF_MATCH, "\"1-4-smile\"")
+                        .accept(WireFormat.SMILE.getMediaType())
+                        .content(asJsonString(createProduct()))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-5-smile\""))
+                .andExpect(content().contentType(WireFormat.SMILE.getMediaType()))
+                .andExpect(status().isCreated());
+
+        verify(service, times(1)).updateProduct(expected);
+    }
+
+    @Test
+    void testUpdateProductByIdPreconditionFailed() throws Exception {
+        Product product = createProduct();
+        product.setVersion(4L);
+        when(service.updateProduct(product)).thenThrow(new HttpClientErrorException(HttpStatus.PRECONDITION_FAILED));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put(URL + "/1")
+                        .header(HttpHeaders.IF_MATCH, "\"1-4\"")
+                        .content(asJsonString(createProduct()))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put(URL + "/1")
+                        .header(HttpHeaders.IF_MATCH, "\"2-4\"")
+                        .content(asJsonString(createProduct()))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed());
+        verify(service, times(1)).updateProduct(any());
+    }
+
+    @Test
+    void testUpdateProductByIdVersionConflict() throws Exception {
+        Product product = createProduct();
+        product.setVersion(4L);
+        when(service.updateProduct(product)).thenThrow(new HttpClientErrorException(HttpStatus.PRECONDITION_FAILED));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put(URL + "/1")
+                        .content(asJsonString(product))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
     }
 
     @Test
@@ -175,7 +676,7 @@ public class ProductControllerTest {
     void testDeleteProduct() throws Exception {
         Optional<Product> product = Optional.of(createProduct());
 
-        when(service.findProductById(anyLong())).thenReturn(product);
+        when(service.deleteProduct(1L)).thenReturn(true);
 
         ResultActions mvcResult = mockMvc.perform(MockMvcRequestBuilders
                         .delete(URL + "/1")
@@ -184,7 +685,30 @@ public class ProductControllerTest {
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNoContent());
 
-        verify(service, times(1)).deleteProduct(anyLong());
+        verify(service, times(1)).deleteProduct(1L);
+        verify(service, never()).findProductById(anyLong());
+    }
+
+    @Test
+    void testDeleteMissingProduct() throws Exception {
+        when(service.deleteProduct(2L)).thenReturn(false);
+
+        mockMvc.perform(MockMvcRequestBuilders.delete(URL + "/2"))
+                .andExpect(status().isNotFound());
+
+        verify(service, times(1)).deleteProduct(2L);
+    }
+
+    @Test
+    void testHeadProduct() throws Exception {
+        when(service.existsProduct(1L)).thenReturn(true);
+
+        mockMvc.perform(MockMvcRequestBuilders.head(URL + "/1"))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.head(URL + "/2"))
+                .andExpect(status().isNotFound());
+
+        verify(service, never()).findProductById(anyLong());
     }
 
     @Test
@@ -192,8 +716,6 @@ public class ProductControllerTest {
         Optional<Product> product = Optional.of(createProduct());
         product.get().setId(null);
 
-        when(service.findProductById(null)).thenReturn(product);
-
         ResultActions mvcResult = mockMvc.perform(MockMvcRequestBuilders
                         .delete(URL + null)
                         .content(asJsonString(product))
@@ -204,10 +726,75 @@ public class ProductControllerTest {
         verify(service, times(0)).deleteProduct(anyLong());
     }
 
+    @Test
+    void testSaveProducts() throws Exception {
+        Product product = createProduct();
+        product.setId(null);
+        List<Product> productList = List.of(product, product);
+
+        when(service.saveProducts(productList)).thenReturn(List.of(
+                new ProductBatchResult(0, 1L, ProductBatchResult.Status.CREATED),
+                new ProductBatchResult(1, null, ProductBatchResult.Status.CONFLICT)));
+
+        ResultActions mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                        .post(URL + "/batch")
+                        .content(asJsonString(productList))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$", hasSize(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status").value("CONFLICT"))
+                .andExpect(status().isOk());
+
+        verify(service, times(1)).saveProducts(productList);
+    }
+
+    @Test
+    void testUpdateProducts() throws Exception {
+        List<Product> productList = createProductList();
+
+        when(service.updateProducts(productList)).thenReturn(List.of(
+                new ProductBatchResult(0, 1L, ProductBatchResult.Status.UPDATED),
+                new ProductBatchResult(1, 1L, ProductBatchResult.Status.CONFLICT)));
+
+        ResultActions mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                        .put(URL + "/batch")
+                        .content(asJsonString(productList))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("UPDATED"))
+                .andExpect(status().isOk());
+
+        verify(service, times(1)).updateProducts(productList);
+    }
+
+    @Test
+    void testDeleteProducts() throws Exception {
+        when(service.deleteProducts(List.of(1L, 2L))).thenReturn(List.of(
+                new ProductBatchResult(0, 1L, ProductBatchResult.Status.DELETED),
+                new ProductBatchResult(1, 2L, ProductBatchResult.Status.NOT_FOUND)));
+
+        ResultActions mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                        .delete(URL + "/batch")
+                        .content(asJsonString(List.of(1L, 2L)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status").value("NOT_FOUND"))
+                .andExpect(status().isOk());
+
+        verify(service, times(1)).deleteProducts(List.of(1L, 2L));
+        verify(service, times(0)).deleteProduct(anyLong());
+    }
+
     private Product createProduct() {
         return new Product(1L, "Box", 100D);
     }
 
+    private static Product updated(Product product) {
+        long version = product.getVersion() == null ? 1 : product.getVersion() + 1;
+        return new Product(product.getId(), product.getName(), product.getPrice(), version, Instant.now());
+    }
+
     private List<Product> createProductList() {
         Product productOne = createProduct();
         Product productTwo = createProduct();
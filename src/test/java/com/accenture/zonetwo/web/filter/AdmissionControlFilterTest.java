@@ -0,0 +1,147 @@
+package com.accenture.zonetwo.web.filter;
+
+import com.accenture.zonetwo.web.limit.GradientConcurrencyLimiter;
+import com.accenture.zonetwo.web.limit.TokenBucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdmissionControlFilterTest {
+
+    private MeterRegistry meterRegistry;
+    private GradientConcurrencyLimiter limiter;
+
+    @BeforeEach
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = new GradientConcurrencyLimiter(2, 1, 10, 0.5);
+    }
+
+    @Test
+    void testRateLimitsEachClient() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(meterRegistry, limiter, null, 0,
+                () -> new TokenBucket(0.001, 1), "X-Forwarded-For", Set.of("192.168.0.1"), Duration.ofSeconds(1));
+
+        assertEquals(200, filter(filter, request("GET", "10.0.0.1")).getStatus());
+        MockHttpServletResponse rejected = filter(filter, request("GET", "10.0.0.1, 192.168.0.1"));
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1000", rejected.getHeader("Retry-After"));
+        assertEquals(200, filter(filter, request("GET", "10.0.0.2")).getStatus());
+        assertEquals(1D, rejected("client_rate", "read"));
+    }
+
+    @Test
+    void testIgnoresClientChosenForwardedEntries() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(meterRegistry, limiter, null, 0,
+                () -> new TokenBucket(0.001, 1), "X-Forwarded-For", Set.of(), Duration.ofSeconds(1));
+
+        assertEquals(200, filter(filter, request("GET", "10.0.0.1")).getStatus());
+        assertEquals(429, filter(filter, request("GET", "1.2.3.4, 10.0.0.1")).getStatus());
+        assertEquals(429, filter(filter, request("GET", "5.6.7.8,10.0.0.1")).getStatus());
+    }
+
+    @Test
+    void testRateLimitsAllClients() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(meterRegistry, limiter, new TokenBucket(0.5, 1), 0,
+                null, null, Set.of(), Duration.ofSeconds(1));
+
+        assertEquals(200, filter(filter, request("POST", "10.0.0.1")).getStatus());
+        MockHttpServletResponse rejected = filter(filter, request("POST", "10.0.0.2"));
+        assertEquals(429, rejected.getStatus());
+        assertEquals("2", rejected.getHeader("Retry-After"));
+        assertEquals(1D, rejected("global_rate", "write"));
+    }
+
+    @Test
+    void testLeavesGlobalReserveToReads() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(meterRegistry, limiter, new TokenBucket(0.5, 3), 1,
+                null, null, Set.of(), Duration.ofSeconds(1));
+
+        assertEquals(200, filter(filter, request("POST", "10.0.0.1")).getStatus());
+        assertEquals(200, filter(filter, request("POST", "10.0.0.1")).getStatus());
+        assertEquals(429, filter(filter, request("POST", "10.0.0.1")).getStatus());
+        assertEquals(200, filter(filter, request("GET", "10.0.0.1")).getStatus());
+        assertEquals(1D, rejected("global_rate", "write"));
+    }
+
+    @Test
+    void testRateLimitsEachRemoteAddressWithoutClientHeader() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(meterRegistry, limiter, null, 0,
+                () -> new TokenBucket(0.001, 1), "", Set.of(), Duration.ofSeconds(1));
+
+        assertEquals(200, filter(filter, fromRemoteAddress("10.0.0.1")).getStatus());
+        assertEquals(429, filter(filter, fromRemoteAddress("10.0.0.1")).getStatus());
+        assertEquals(200, filter(filter, fromRemoteAddress("10.0.0.2")).getStatus());
+        assertEquals(1D, rejected("client_rate", "read"));
+    }
+
+    @Test
+    void testShedsWritesOverConcurrencyLimit() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(meterRegistry, limiter, null, 0, null, null,
+                Set.of(), Duration.ofSeconds(3));
+        GradientConcurrencyLimiter.Permit inFlight = limiter.tryAcquire(false);
+
+        MockHttpServletResponse rejected = filter(filter, request("PUT", "10.0.0.1"));
+        assertEquals(503, rejected.getStatus());
+        assertEquals("3", rejected.getHeader("Retry-After"));
+        assertEquals(200, filter(filter, request("GET", "10.0.0.1")).getStatus());
+        assertEquals(1D, rejected("concurrency", "write"));
+        assertEquals(1D, meterRegistry.get("product.admission.in.flight").gauge().value());
+
+        inFlight.ignore();
+        assertEquals(0D, meterRegistry.get("product.admission.in.flight").gauge().value());
+    }
+
+    @Test
+    void testReleasesPermitWhenHandlerFails() {
+        AdmissionControlFilter filter = new AdmissionControlFilter(meterRegistry, limiter, null, 0, null, null,
+                Set.of(), Duration.ofSeconds(1));
+        FilterChain failing = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                throw new IllegalStateException("Database is down");
+            }
+        });
+
+        assertThrows(IllegalStateException.class,
+                () -> filter.doFilter(request("GET", "10.0.0.1"), new MockHttpServletResponse(), failing));
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    private static MockHttpServletRequest request(String method, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/product");
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        return request;
+    }
+
+    private static MockHttpServletRequest fromRemoteAddress(String remoteAddress) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/product");
+        request.setRemoteAddr(remoteAddress);
+        return request;
+    }
+
+    private static MockHttpServletResponse filter(AdmissionControlFilter filter, MockHttpServletRequest request)
+            throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private double rejected(String reason, String priority) {
+        return meterRegistry.get(AdmissionControlFilter.METRIC_NAME).tag("reason", reason).tag("priority", priority)
+                .counter().count();
+    }
+}
@@ -0,0 +1,42 @@
+package com.accenture.zonetwo.web.filter;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseSizeMetricsFilterTest {
+
+    @Test
+    void testRecordsResponseSize() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/product/1");
+        MockFilterChain filterChain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/product/{id}");
+                resp.getOutputStream().write(new byte[42]);
+            }
+        });
+
+        new ResponseSizeMetricsFilter(meterRegistry).doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        DistributionSummary summary = meterRegistry.get(ResponseSizeMetricsFilter.METRIC_NAME)
+                .tag("uri", "/product/{id}")
+                .tag("status", "200")
+                .summary();
+        assertEquals(1, summary.count());
+        assertEquals(42, summary.totalAmount());
+    }
+}
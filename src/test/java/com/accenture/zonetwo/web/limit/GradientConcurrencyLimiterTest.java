@@ -0,0 +1,84 @@
+package com.accenture.zonetwo.web.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GradientConcurrencyLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void testShedsWritesBeforeReads() {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(4, 1, 10, 0.5, now::get);
+        assertNotNull(limiter.tryAcquire(true));
+        assertNotNull(limiter.tryAcquire(false));
+        assertNull(limiter.tryAcquire(true));
+        assertNotNull(limiter.tryAcquire(false));
+        GradientConcurrencyLimiter.Permit last = limiter.tryAcquire(false);
+        assertNotNull(last);
+        assertNull(limiter.tryAcquire(false));
+
+        last.ignore();
+        last.ignore();
+        assertEquals(3, limiter.getInFlight());
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void testGrowsWhileLatencyHolds() {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(10, 1, 100, 1, now::get);
+        runRounds(limiter, 20, TimeUnit.MILLISECONDS.toNanos(10));
+        assertTrue(limiter.getLimit() > 30, "Limit is " + limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testShrinksWhenLatencyRises() {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(50, 5, 100, 1, now::get);
+        runRounds(limiter, 1, TimeUnit.MILLISECONDS.toNanos(10));
+        int settled = limiter.getLimit();
+        runRounds(limiter, 10, TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(limiter.getLimit() < settled / 2, "Limit is " + limiter.getLimit());
+    }
+
+    @Test
+    void testBacksOffOnFailures() {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(20, 10, 100, 1, now::get);
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire(false).release(true);
+        }
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void testIgnoresLatencyWhenMostlyIdle() {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(20, 1, 100, 1, now::get);
+        for (int i = 0; i < 100; i++) {
+            GradientConcurrencyLimiter.Permit permit = limiter.tryAcquire(false);
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(i % 2 == 0 ? 1 : 500));
+            permit.release(false);
+        }
+        assertEquals(20, limiter.getLimit());
+    }
+
+    /**
+     * Fills the limit, then completes every request after the given latency.
+     */
+    private void runRounds(GradientConcurrencyLimiter limiter, int rounds, long latency) {
+        for (int round = 0; round < rounds; round++) {
+            List<GradientConcurrencyLimiter.Permit> permits = new ArrayList<>();
+            for (GradientConcurrencyLimiter.Permit permit = limiter.tryAcquire(false); permit != null;
+                 permit = limiter.tryAcquire(false)) {
+                permits.add(permit);
+            }
+            now.addAndGet(latency);
+            permits.forEach(permit -> permit.release(false));
+        }
+    }
+}
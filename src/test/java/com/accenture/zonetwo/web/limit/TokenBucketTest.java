@@ -0,0 +1,47 @@
+package com.accenture.zonetwo.web.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketTest {
+
+    @Test
+    void testAdmitsBurstThenRate() {
+        AtomicLong now = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(10, 3, now::get);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryAcquire());
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.tryAcquire());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(60));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(40), bucket.tryAcquire(), TimeUnit.MICROSECONDS.toNanos(1));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(40));
+        assertEquals(0, bucket.tryAcquire());
+    }
+
+    @Test
+    void testRefillsUpToCapacity() {
+        AtomicLong now = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(10, 2, now::get);
+        now.addAndGet(TimeUnit.HOURS.toNanos(1));
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(0, bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire() > 0);
+    }
+
+    @Test
+    void testKeepsReserve() {
+        AtomicLong now = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(10, 3, now::get);
+        assertEquals(0, bucket.tryAcquire(1));
+        assertEquals(0, bucket.tryAcquire(1));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.tryAcquire(1));
+        assertEquals(0, bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire() > 0);
+    }
+}